@@ -0,0 +1,198 @@
+// android/app/src/main/java/com/pdfimagetoolbox/AacTranscoder.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes any audio track MediaExtractor can read and re-encodes it as AAC-LC
+ * in an MP4 container.
+ *
+ * Decoded PCM is copied straight from the decoder's output buffer into encoder
+ * input buffers (split across several when the encoder's buffers are smaller),
+ * so no per-buffer byte[] is allocated. The loop is a single non-blocking state
+ * machine: it only waits with a timeout when no stage made progress.
+ */
+public class AacTranscoder {
+    private static final String TAG = "AacTranscoder";
+    public static final int BIT_RATE = 128000;
+    private static final int MAX_INPUT_SIZE = 16384;
+    private static final int IDLE_TIMEOUT_US = 10000;
+    private static final int BYTES_PER_PCM_SAMPLE = 2;
+
+    /** Target parameters, used as part of the transcode cache key. */
+    public static String targetParams() {
+        return MediaFormat.MIMETYPE_AUDIO_AAC + "/LC/" + BIT_RATE;
+    }
+
+    public void transcode(AudioProbe source, File outputFile) throws Exception {
+        MediaExtractor extractor = source.openExtractor();
+        MediaCodec decoder = null;
+        MediaCodec encoder = null;
+        MediaMuxer muxer = null;
+        boolean muxerStarted = false;
+
+        try {
+            MediaFormat sourceFormat = source.format;
+            decoder = MediaCodec.createDecoderByType(sourceFormat.getString(MediaFormat.KEY_MIME));
+            decoder.configure(sourceFormat, null, null, 0);
+            decoder.start();
+
+            int sampleRate = sourceFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            int channelCount = sourceFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+
+            MediaFormat aacFormat = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC, sampleRate, channelCount);
+            aacFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+            aacFormat.setInteger(MediaFormat.KEY_BIT_RATE, BIT_RATE);
+            aacFormat.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, MAX_INPUT_SIZE);
+
+            encoder = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
+            encoder.configure(aacFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            encoder.start();
+
+            muxer = new MediaMuxer(outputFile.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+
+            MediaCodec.BufferInfo decInfo = new MediaCodec.BufferInfo();
+            MediaCodec.BufferInfo encInfo = new MediaCodec.BufferInfo();
+            int muxerTrackIndex = -1;
+
+            boolean extractorDone = false;
+            boolean encoderInputDone = false;
+            boolean encoderDone = false;
+
+            // Decoder output buffer currently being copied into the encoder
+            int pendingIndex = -1;
+            ByteBuffer pending = null;
+            long pendingPtsUs = 0;
+            int pendingConsumed = 0;
+            boolean pendingEos = false;
+            int bytesPerFrame = BYTES_PER_PCM_SAMPLE * channelCount;
+
+            while (!encoderDone) {
+                boolean progressed = false;
+
+                // 1. Extractor -> decoder
+                if (!extractorDone) {
+                    int inIndex = decoder.dequeueInputBuffer(0);
+                    if (inIndex >= 0) {
+                        ByteBuffer dst = decoder.getInputBuffer(inIndex);
+                        dst.clear();
+                        int sampleSize = extractor.readSampleData(dst, 0);
+                        if (sampleSize < 0) {
+                            decoder.queueInputBuffer(inIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            extractorDone = true;
+                        } else {
+                            decoder.queueInputBuffer(inIndex, 0, sampleSize, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                        progressed = true;
+                    }
+                }
+
+                // 2. Take the next decoded PCM buffer
+                if (pending == null && !encoderInputDone) {
+                    int decOutIndex = decoder.dequeueOutputBuffer(decInfo, 0);
+                    if (decOutIndex >= 0) {
+                        progressed = true;
+                        if ((decInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
+                            decoder.releaseOutputBuffer(decOutIndex, false);
+                        } else {
+                            pendingIndex = decOutIndex;
+                            pending = decoder.getOutputBuffer(decOutIndex);
+                            pending.position(decInfo.offset);
+                            pending.limit(decInfo.offset + decInfo.size);
+                            pendingPtsUs = decInfo.presentationTimeUs;
+                            pendingConsumed = 0;
+                            pendingEos = (decInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                        }
+                    } else if (decOutIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                        MediaFormat decoded = decoder.getOutputFormat();
+                        if (decoded.containsKey(MediaFormat.KEY_CHANNEL_COUNT)) {
+                            bytesPerFrame = BYTES_PER_PCM_SAMPLE * decoded.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                        }
+                        progressed = true;
+                    }
+                }
+
+                // 3. Decoder output -> encoder input, without an intermediate copy
+                if (pending != null) {
+                    int encInIndex = encoder.dequeueInputBuffer(0);
+                    if (encInIndex >= 0) {
+                        progressed = true;
+                        ByteBuffer encIn = encoder.getInputBuffer(encInIndex);
+                        encIn.clear();
+
+                        int remaining = pending.remaining();
+                        int chunk = Math.min(remaining, encIn.remaining());
+                        int savedLimit = pending.limit();
+                        pending.limit(pending.position() + chunk);
+                        encIn.put(pending);
+                        pending.limit(savedLimit);
+
+                        long chunkPtsUs = pendingPtsUs
+                            + (pendingConsumed / bytesPerFrame) * 1000000L / sampleRate;
+                        pendingConsumed += chunk;
+
+                        boolean lastChunk = !pending.hasRemaining();
+                        int flags = lastChunk && pendingEos ? MediaCodec.BUFFER_FLAG_END_OF_STREAM : 0;
+                        encoder.queueInputBuffer(encInIndex, 0, chunk, chunkPtsUs, flags);
+
+                        if (lastChunk) {
+                            decoder.releaseOutputBuffer(pendingIndex, false);
+                            pending = null;
+                            pendingIndex = -1;
+                            if (pendingEos) {
+                                encoderInputDone = true;
+                            }
+                        }
+                    }
+                }
+
+                // 4. Encoder -> muxer
+                int encOutIndex = encoder.dequeueOutputBuffer(encInfo, progressed ? 0 : IDLE_TIMEOUT_US);
+                if (encOutIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    if (muxerStarted) {
+                        throw new IllegalStateException("AAC encoder output format changed twice");
+                    }
+                    muxerTrackIndex = muxer.addTrack(encoder.getOutputFormat());
+                    muxer.start();
+                    muxerStarted = true;
+                } else if (encOutIndex >= 0) {
+                    ByteBuffer encoded = encoder.getOutputBuffer(encOutIndex);
+                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
+                        encInfo.size = 0;
+                    }
+                    if (encInfo.size > 0 && muxerStarted) {
+                        encoded.position(encInfo.offset);
+                        encoded.limit(encInfo.offset + encInfo.size);
+                        muxer.writeSampleData(muxerTrackIndex, encoded, encInfo);
+                    }
+                    encoder.releaseOutputBuffer(encOutIndex, false);
+                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        encoderDone = true;
+                    }
+                }
+            }
+
+            if (!muxerStarted) {
+                throw new IllegalStateException("AAC encoder produced no output");
+            }
+            // Stopped here, not in finally: a failed stop leaves a truncated file and must fail the transcode
+            muxer.stop();
+            Log.d(TAG, "✅ Transcoded to AAC: " + outputFile.length() + " bytes");
+
+        } finally {
+            try { extractor.release(); } catch (Exception ignored) {}
+            try { if (decoder != null) { decoder.stop(); decoder.release(); } } catch (Exception ignored) {}
+            try { if (encoder != null) { encoder.stop(); encoder.release(); } } catch (Exception ignored) {}
+            try { if (muxer != null) muxer.release(); } catch (Exception ignored) {}
+        }
+    }
+}
@@ -0,0 +1,111 @@
+// android/app/src/main/java/com/pdfimagetoolbox/AudioProbe.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What the audio stages need to know about a file - audio track index,
+ * format, MIME and duration - parsed once instead of by every stage with its
+ * own MediaExtractor scan.
+ *
+ * Probes are cached by path + size + mtime, so a replaced file is probed
+ * again. The format is shared between users and must be treated as read-only.
+ */
+public final class AudioProbe {
+    private static final String TAG = "AudioProbe";
+    private static final int CACHE_SIZE = 16;
+
+    private static final Map<String, AudioProbe> CACHE = new LinkedHashMap<String, AudioProbe>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AudioProbe> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public final String path;
+    public final int trackIndex;
+    public final MediaFormat format;
+    public final String mime;
+    public final long durationUs;
+
+    private AudioProbe(String path, int trackIndex, MediaFormat format, String mime, long durationUs) {
+        this.path = path;
+        this.trackIndex = trackIndex;
+        this.format = format;
+        this.mime = mime;
+        this.durationUs = durationUs;
+    }
+
+    /**
+     * Probe of path's first audio track, from the cache when the file is
+     * unchanged. Null if the file has no audio track.
+     */
+    public static AudioProbe of(String path) throws IOException {
+        File file = new File(path);
+        String key = path + "|" + file.length() + "|" + file.lastModified();
+        synchronized (CACHE) {
+            AudioProbe cached = CACHE.get(key);
+            if (cached != null) return cached;
+        }
+        AudioProbe probe = scan(path);
+        if (probe == null) return null;
+        synchronized (CACHE) {
+            CACHE.put(key, probe);
+        }
+        return probe;
+    }
+
+    private static AudioProbe scan(String path) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(path);
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                if (mime == null || !mime.startsWith("audio/")) continue;
+
+                long durationUs;
+                if (format.containsKey(MediaFormat.KEY_DURATION)) {
+                    durationUs = format.getLong(MediaFormat.KEY_DURATION);
+                } else {
+                    // Headerless streams (some VBR MP3s): walk to the last sample once, here
+                    extractor.selectTrack(i);
+                    durationUs = 0;
+                    while (extractor.getSampleTime() >= 0) {
+                        durationUs = extractor.getSampleTime();
+                        extractor.advance();
+                    }
+                }
+                Log.d(TAG, "🔎 " + new File(path).getName() + ": " + mime + ", " + (durationUs / 1000) + " ms");
+                return new AudioProbe(path, i, format, mime, durationUs);
+            }
+            return null;
+        } finally {
+            extractor.release();
+        }
+    }
+
+    /** An extractor on this file with the audio track already selected. Caller releases it. */
+    public MediaExtractor openExtractor() throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(path);
+            extractor.selectTrack(trackIndex);
+            return extractor;
+        } catch (IOException | RuntimeException e) {
+            extractor.release();
+            throw e;
+        }
+    }
+
+    public boolean isMp3() {
+        return mime.equalsIgnoreCase("audio/mpeg") || mime.contains("mpeg") || mime.contains("mp3");
+    }
+}
@@ -0,0 +1,144 @@
+// android/app/src/main/java/com/pdfimagetoolbox/AudioSampleSource.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compressed audio samples fed into the same MediaMuxer the video encoder
+ * writes to. The encode loop calls writeUntil() after every video sample so
+ * audio is interleaved as the video is produced and the MP4 is written once.
+ *
+ * Samples at or beyond maxDurationUs are dropped (trims long tracks). With
+ * loop enabled a short track is replayed from the start with its timestamps
+ * shifted on the fly, so looping never materialises an intermediate file.
+ */
+public class AudioSampleSource implements AutoCloseable {
+    private static final int DEFAULT_SAMPLE_BUFFER_SIZE = 256 * 1024;
+
+    private final AudioProbe probe;
+    private final MediaExtractor extractor;
+    private final MediaFormat format;
+    private final long maxDurationUs;
+    private final boolean loop;
+    private final ByteBuffer buffer;
+    private final MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+    private int muxerTrackIndex = -1;
+    private boolean finished = false;
+    private int samplesWritten = 0;
+
+    // Timestamp rewriting for looped playback
+    private long loopOffsetUs = 0;
+    private long lastOutputTimeUs = -1;
+    private long lastSampleDeltaUs = 0;
+    private int loopCount = 0;
+
+    public AudioSampleSource(AudioProbe probe, long maxDurationUs) throws Exception {
+        this(probe, maxDurationUs, false);
+    }
+
+    public AudioSampleSource(AudioProbe probe, long maxDurationUs, boolean loop) throws Exception {
+        this.probe = probe;
+        this.format = probe.format;
+        this.maxDurationUs = maxDurationUs;
+        this.loop = loop;
+        int bufferSize = format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)
+            ? format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE)
+            : DEFAULT_SAMPLE_BUFFER_SIZE;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.extractor = probe.openExtractor();
+    }
+
+    public AudioProbe getProbe() {
+        return probe;
+    }
+
+    public MediaFormat getFormat() {
+        return format;
+    }
+
+    /** Must be set (after muxer.addTrack) before any samples are written. */
+    public void setMuxerTrackIndex(int muxerTrackIndex) {
+        this.muxerTrackIndex = muxerTrackIndex;
+    }
+
+    public boolean hasTrack() {
+        return muxerTrackIndex >= 0;
+    }
+
+    public int getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    public int getLoopCount() {
+        return loopCount;
+    }
+
+    /** Writes every pending sample with presentation time <= ptsUs. */
+    public void writeUntil(MediaMuxer muxer, long ptsUs) {
+        if (muxerTrackIndex < 0 || finished) return;
+        long limitUs = Math.min(ptsUs, maxDurationUs - 1);
+        while (true) {
+            long sampleTime = extractor.getSampleTime();
+            if (sampleTime < 0 && !rewind()) {
+                finished = true;
+                return;
+            }
+            if (sampleTime < 0) {
+                sampleTime = extractor.getSampleTime();
+            }
+
+            long outputTimeUs = loopOffsetUs + sampleTime;
+            if (outputTimeUs >= maxDurationUs) {
+                finished = true;
+                return;
+            }
+            if (outputTimeUs > limitUs) return;
+
+            buffer.clear();
+            int sampleSize = extractor.readSampleData(buffer, 0);
+            if (sampleSize < 0) {
+                finished = true;
+                return;
+            }
+            bufferInfo.set(0, sampleSize, outputTimeUs, extractor.getSampleFlags());
+            muxer.writeSampleData(muxerTrackIndex, buffer, bufferInfo);
+            samplesWritten++;
+
+            if (lastOutputTimeUs >= 0) {
+                lastSampleDeltaUs = outputTimeUs - lastOutputTimeUs;
+            }
+            lastOutputTimeUs = outputTimeUs;
+            extractor.advance();
+        }
+    }
+
+    /**
+     * Restarts the track for the next loop. The new pass starts one sample
+     * duration after the last written sample, so loops are gapless and
+     * timestamps keep increasing even when KEY_DURATION is inaccurate.
+     */
+    private boolean rewind() {
+        if (!loop || lastOutputTimeUs < 0) return false;
+        extractor.seekTo(0, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
+        long firstSampleTime = extractor.getSampleTime();
+        if (firstSampleTime < 0) return false;
+        loopOffsetUs = lastOutputTimeUs + Math.max(lastSampleDeltaUs, 1) - firstSampleTime;
+        loopCount++;
+        return true;
+    }
+
+    /** Flushes the rest of the track up to the duration cap. */
+    public void writeRemaining(MediaMuxer muxer) {
+        writeUntil(muxer, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        extractor.release();
+    }
+}
@@ -0,0 +1,99 @@
+// android/app/src/main/java/com/pdfimagetoolbox/BitmapPool.java
+package com.pdfimagetoolbox;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycles mutable ARGB_8888 bitmaps between image loads, so a slideshow
+ * decodes into the same few buffers (BitmapFactory.Options.inBitmap) instead
+ * of allocating and dropping several full frames per image.
+ *
+ * New bitmaps are allocated rounded up to a size class (four per power of
+ * two), then reconfigure()d to the requested size - a buffer can later serve
+ * any request up to its class, e.g. sampled decodes of differently sized
+ * photos. Thread-safe; pipeline workers share one pool.
+ */
+public final class BitmapPool {
+    private static final String TAG = "BitmapPool";
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final long maxFreeBytes;
+    private final List<Bitmap> free = new ArrayList<>();
+    private long freeBytes = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    /** @param maxFreeBytes how much idle bitmap memory the pool may hold on to */
+    public BitmapPool(long maxFreeBytes) {
+        this.maxFreeBytes = maxFreeBytes;
+    }
+
+    /** A mutable width x height ARGB_8888 bitmap with undefined contents. */
+    public synchronized Bitmap obtain(int width, int height) {
+        long needed = (long) width * height * BYTES_PER_PIXEL;
+        int best = -1;
+        long bestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < free.size(); i++) {
+            long bytes = free.get(i).getAllocationByteCount();
+            if (bytes >= needed && bytes < bestBytes) {
+                best = i;
+                bestBytes = bytes;
+            }
+        }
+        if (best >= 0) {
+            Bitmap bitmap = free.remove(best);
+            freeBytes -= bestBytes;
+            bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+            hits++;
+            return bitmap;
+        }
+
+        misses++;
+        int rows = (int) Math.min(Integer.MAX_VALUE,
+            (sizeClass(needed) + (long) width * BYTES_PER_PIXEL - 1) / ((long) width * BYTES_PER_PIXEL));
+        Bitmap bitmap = Bitmap.createBitmap(width, rows, Bitmap.Config.ARGB_8888);
+        if (rows != height) {
+            bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+        }
+        return bitmap;
+    }
+
+    /** Hands a bitmap back; it is recycled instead when the pool is full or it cannot be reused. */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        long bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888
+            || freeBytes + bytes > maxFreeBytes) {
+            bitmap.recycle();
+            return;
+        }
+        free.add(bitmap);
+        freeBytes += bytes;
+    }
+
+    /** Recycles every idle bitmap; call when a render is done. */
+    public synchronized void clear() {
+        for (Bitmap bitmap : free) {
+            bitmap.recycle();
+        }
+        free.clear();
+        freeBytes = 0;
+        if (hits + misses > 0) {
+            Log.d(TAG, "📊 Bitmap pool: " + hits + " reused, " + misses + " allocated");
+        }
+        hits = 0;
+        misses = 0;
+    }
+
+    // Rounds up to the next of four steps between consecutive powers of two (at most 25% slack)
+    static long sizeClass(long bytes) {
+        int shift = 63 - Long.numberOfLeadingZeros(bytes) - 2;
+        if (shift <= 0) return bytes;
+        long step = 1L << shift;
+        return (bytes + step - 1) & ~(step - 1);
+    }
+}
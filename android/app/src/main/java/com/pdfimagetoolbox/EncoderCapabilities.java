@@ -0,0 +1,240 @@
+// android/app/src/main/java/com/pdfimagetoolbox/EncoderCapabilities.java
+package com.pdfimagetoolbox;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+import android.util.Range;
+
+/**
+ * What the device's video encoders can actually do, probed once via
+ * MediaCodecList and cached in SharedPreferences keyed by the build
+ * fingerprint (so an OS update re-probes).
+ *
+ * For each of AVC and HEVC the best encoder that accepts YUV buffer input is
+ * picked - hardware before software, then MediaCodecList order.
+ */
+public final class EncoderCapabilities {
+    private static final String TAG = "EncoderCapabilities";
+    private static final String PREFS_NAME = "video_encoder_caps";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+
+    public static final String MIME_AVC = "video/avc";
+    public static final String MIME_HEVC = "video/hevc";
+
+    private static volatile EncoderCapabilities cached;
+
+    /** One encoder and the limits that matter for configure(). */
+    public static final class Codec {
+        public final String mime;
+        public final String name;
+        public final boolean hardware;
+        public final int colorFormat;
+        public final int widthAlignment;
+        public final int heightAlignment;
+        public final int maxWidth;
+        public final int maxHeight;
+        public final int minBitrate;
+        public final int maxBitrate;
+        public final boolean vbr;
+        public final boolean cbr;
+        public final boolean cq;
+        public final int maxInstances;   // concurrent sessions the codec reports
+
+        Codec(String mime, String name, boolean hardware, int colorFormat,
+              int widthAlignment, int heightAlignment, int maxWidth, int maxHeight,
+              int minBitrate, int maxBitrate, boolean vbr, boolean cbr, boolean cq, int maxInstances) {
+            this.mime = mime;
+            this.name = name;
+            this.hardware = hardware;
+            this.colorFormat = colorFormat;
+            this.widthAlignment = Math.max(2, widthAlignment);
+            this.heightAlignment = Math.max(2, heightAlignment);
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.minBitrate = minBitrate;
+            this.maxBitrate = maxBitrate;
+            this.vbr = vbr;
+            this.cbr = cbr;
+            this.cq = cq;
+            this.maxInstances = Math.max(1, maxInstances);
+        }
+
+        /**
+         * Shrinks width x height (keeping aspect) until it fits the encoder's
+         * maximum, then rounds both down to the required alignment.
+         */
+        public int[] fitSize(int width, int height) {
+            float scale = Math.min(1f, Math.min((float) maxWidth / width, (float) maxHeight / height));
+            int w = Math.round(width * scale);
+            int h = Math.round(height * scale);
+            w = Math.max(widthAlignment, (w / widthAlignment) * widthAlignment);
+            h = Math.max(heightAlignment, (h / heightAlignment) * heightAlignment);
+            return new int[]{w, h};
+        }
+
+        public int clampBitrate(int bitrate) {
+            return Math.max(minBitrate, Math.min(maxBitrate, bitrate));
+        }
+
+        String serialize() {
+            return mime + "|" + name + "|" + hardware + "|" + colorFormat + "|"
+                + widthAlignment + "|" + heightAlignment + "|" + maxWidth + "|" + maxHeight + "|"
+                + minBitrate + "|" + maxBitrate + "|" + vbr + "|" + cbr + "|" + cq + "|" + maxInstances;
+        }
+
+        static Codec parse(String value) {
+            String[] f = value.split("\\|");
+            return new Codec(f[0], f[1], Boolean.parseBoolean(f[2]), Integer.parseInt(f[3]),
+                Integer.parseInt(f[4]), Integer.parseInt(f[5]), Integer.parseInt(f[6]), Integer.parseInt(f[7]),
+                Integer.parseInt(f[8]), Integer.parseInt(f[9]),
+                Boolean.parseBoolean(f[10]), Boolean.parseBoolean(f[11]), Boolean.parseBoolean(f[12]),
+                Integer.parseInt(f[13]));
+        }
+
+        @Override
+        public String toString() {
+            return name + (hardware ? " (hw)" : " (sw)") + " max " + maxWidth + "x" + maxHeight
+                + " align " + widthAlignment + "x" + heightAlignment + ", " + maxInstances + " instance(s)";
+        }
+    }
+
+    private final Codec avc;
+    private final Codec hevc;
+
+    private EncoderCapabilities(Codec avc, Codec hevc) {
+        this.avc = avc;
+        this.hevc = hevc;
+    }
+
+    /** Best AVC encoder, or null if none accepts YUV buffers. */
+    public Codec getAvc() {
+        return avc;
+    }
+
+    /** Best HEVC encoder, or null if the device has none. */
+    public Codec getHevc() {
+        return hevc;
+    }
+
+    /** The encoder for mime, falling back to AVC when it is unavailable. */
+    public Codec select(String mime) {
+        if (MIME_HEVC.equals(mime) && hevc != null) return hevc;
+        return avc;
+    }
+
+    public static EncoderCapabilities get(Context context) {
+        EncoderCapabilities caps = cached;
+        if (caps != null) return caps;
+        synchronized (EncoderCapabilities.class) {
+            if (cached == null) {
+                cached = load(context.getApplicationContext());
+            }
+            return cached;
+        }
+    }
+
+    private static EncoderCapabilities load(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String fingerprint = String.valueOf(Build.FINGERPRINT);
+        if (fingerprint.equals(prefs.getString(KEY_FINGERPRINT, null))) {
+            try {
+                EncoderCapabilities caps = new EncoderCapabilities(
+                    readCodec(prefs, MIME_AVC), readCodec(prefs, MIME_HEVC));
+                Log.d(TAG, "♻️  Encoder caps from cache - AVC: " + caps.avc + ", HEVC: " + caps.hevc);
+                return caps;
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️  Cached encoder caps unreadable, probing again: " + e.getMessage());
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        EncoderCapabilities caps = new EncoderCapabilities(probe(MIME_AVC), probe(MIME_HEVC));
+        Log.d(TAG, "🔍 Probed encoders in " + (System.currentTimeMillis() - start) + " ms - AVC: "
+            + caps.avc + ", HEVC: " + caps.hevc);
+
+        prefs.edit()
+            .putString(KEY_FINGERPRINT, fingerprint)
+            .putString(MIME_AVC, caps.avc != null ? caps.avc.serialize() : "")
+            .putString(MIME_HEVC, caps.hevc != null ? caps.hevc.serialize() : "")
+            .apply();
+        return caps;
+    }
+
+    private static Codec readCodec(SharedPreferences prefs, String mime) {
+        String value = prefs.getString(mime, "");
+        return value.isEmpty() ? null : Codec.parse(value);
+    }
+
+    private static Codec probe(String mime) {
+        Codec best = null;
+        for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+            if (!info.isEncoder() || !supportsType(info, mime)) continue;
+            try {
+                Codec codec = describe(info, mime);
+                if (codec == null) continue;
+                // List order is the platform's preference; only a hardware encoder beats an earlier pick
+                if (best == null || (codec.hardware && !best.hardware)) {
+                    best = codec;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️  Skipping " + info.getName() + ": " + e.getMessage());
+            }
+        }
+        return best;
+    }
+
+    private static boolean supportsType(MediaCodecInfo info, String mime) {
+        for (String type : info.getSupportedTypes()) {
+            if (type.equalsIgnoreCase(mime)) return true;
+        }
+        return false;
+    }
+
+    private static Codec describe(MediaCodecInfo info, String mime) {
+        MediaCodecInfo.CodecCapabilities caps = info.getCapabilitiesForType(mime);
+        int colorFormat = pickColorFormat(caps.colorFormats);
+        if (colorFormat < 0) return null; // surface-only encoder, we feed YUV buffers
+
+        MediaCodecInfo.VideoCapabilities video = caps.getVideoCapabilities();
+        MediaCodecInfo.EncoderCapabilities encoder = caps.getEncoderCapabilities();
+        Range<Integer> widths = video.getSupportedWidths();
+        Range<Integer> heights = video.getSupportedHeights();
+        Range<Integer> bitrates = video.getBitrateRange();
+
+        return new Codec(mime, info.getName(), isHardware(info), colorFormat,
+            video.getWidthAlignment(), video.getHeightAlignment(),
+            widths.getUpper(), heights.getUpper(),
+            bitrates.getLower(), bitrates.getUpper(),
+            encoder.isBitrateModeSupported(MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_VBR),
+            encoder.isBitrateModeSupported(MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CBR),
+            encoder.isBitrateModeSupported(MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CQ),
+            caps.getMaxSupportedInstances());
+    }
+
+    // Flexible first (real plane layout via getInputImage), then the two fixed layouts we can write
+    private static int pickColorFormat(int[] colorFormats) {
+        int fallback = -1;
+        for (int format : colorFormats) {
+            if (format == MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible) {
+                return format;
+            }
+            if (fallback < 0 && (format == MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Planar
+                || format == MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420SemiPlanar)) {
+                fallback = format;
+            }
+        }
+        return fallback;
+    }
+
+    private static boolean isHardware(MediaCodecInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return info.isHardwareAccelerated();
+        }
+        String name = info.getName().toLowerCase();
+        return !(name.startsWith("omx.google.") || name.startsWith("c2.android.") || name.contains(".sw."));
+    }
+}
@@ -0,0 +1,189 @@
+// android/app/src/main/java/com/pdfimagetoolbox/EncoderPool.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaCodec;
+import android.media.MediaFormat;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps finished video encoders warm between renders of a batch, since
+ * creating a codec instance costs hundreds of ms on many devices.
+ *
+ * - Same configuration: the idle encoder is flush()ed and reused as is. It
+ *   will not report its output format again, so the lease carries it.
+ * - Same codec, different configuration: stop() + configure() + start(),
+ *   which skips instantiating the component.
+ * - Otherwise a new instance is created.
+ *
+ * At most maxInstances encoders (busy + idle) exist at once; acquire() blocks
+ * when all are busy. Close the pool when the batch is done - idle hardware
+ * encoders are a shared system resource.
+ */
+public final class EncoderPool implements AutoCloseable {
+    private static final String TAG = "EncoderPool";
+
+    /** An encoder checked out for one render. */
+    public static final class Lease {
+        final MediaCodec codec;
+        final VideoEncoderConfig config;
+        // Non-null when the codec was flushed: INFO_OUTPUT_FORMAT_CHANGED will not come again
+        final MediaFormat outputFormat;
+
+        Lease(MediaCodec codec, VideoEncoderConfig config, MediaFormat outputFormat) {
+            this.codec = codec;
+            this.config = config;
+            this.outputFormat = outputFormat;
+        }
+    }
+
+    private static final class Idle {
+        final MediaCodec codec;
+        final VideoEncoderConfig config;
+        final MediaFormat outputFormat;
+
+        Idle(MediaCodec codec, VideoEncoderConfig config, MediaFormat outputFormat) {
+            this.codec = codec;
+            this.config = config;
+            this.outputFormat = outputFormat;
+        }
+    }
+
+    private final Semaphore busy;
+    private final int maxInstances;
+    private final List<Idle> idle = new ArrayList<>();
+    private boolean closed = false;
+    private int created = 0;
+    private int reused = 0;
+
+    public EncoderPool(int maxInstances) {
+        this.maxInstances = Math.max(1, maxInstances);
+        this.busy = new Semaphore(this.maxInstances);
+    }
+
+    /** Encoders that may run at the same time. */
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    /** Returns a started encoder configured for config, reusing an idle one when possible. */
+    public Lease acquire(VideoEncoderConfig config) throws IOException, InterruptedException {
+        busy.acquire();
+        try {
+            Lease lease = takeIdle(config);
+            if (lease != null) return lease;
+
+            MediaCodec codec = config.createEncoder();
+            try {
+                codec.configure(config.toMediaFormat(), null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+                codec.start();
+            } catch (RuntimeException e) {
+                codec.release();
+                throw e;
+            }
+            synchronized (this) {
+                created++;
+            }
+            return new Lease(codec, config, null);
+        } catch (IOException | RuntimeException e) {
+            busy.release();
+            throw e;
+        }
+    }
+
+    private synchronized Lease takeIdle(VideoEncoderConfig config) {
+        // Exact match first: a flush is all it takes
+        for (int i = 0; i < idle.size(); i++) {
+            Idle candidate = idle.get(i);
+            if (candidate.config.sameEncoding(config)) {
+                idle.remove(i);
+                try {
+                    candidate.codec.flush();
+                    reused++;
+                    Log.d(TAG, "♻️  Reusing flushed encoder " + config);
+                    return new Lease(candidate.codec, config, candidate.outputFormat);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "⚠️  Flush failed, dropping encoder: " + e.getMessage());
+                    releaseQuietly(candidate.codec);
+                    return null;
+                }
+            }
+        }
+        // Same component, new settings: reconfigure instead of instantiating
+        for (int i = 0; i < idle.size(); i++) {
+            Idle candidate = idle.get(i);
+            if (config.codecName != null && config.codecName.equals(candidate.config.codecName)) {
+                idle.remove(i);
+                try {
+                    candidate.codec.stop();
+                    candidate.codec.configure(config.toMediaFormat(), null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+                    candidate.codec.start();
+                    reused++;
+                    Log.d(TAG, "🔧 Reconfigured idle encoder for " + config);
+                    return new Lease(candidate.codec, config, null);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "⚠️  Reconfigure failed, dropping encoder: " + e.getMessage());
+                    releaseQuietly(candidate.codec);
+                    return null;
+                }
+            }
+        }
+        // No match - free an idle instance so the total stays within the device limit
+        if (!idle.isEmpty() && idle.size() + (maxInstances - busy.availablePermits()) > maxInstances) {
+            releaseQuietly(idle.remove(0).codec);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a leased encoder. Pass the output format only when the render
+     * reached end of stream cleanly - anything else releases the codec.
+     */
+    public void release(Lease lease, MediaFormat outputFormat) {
+        try {
+            synchronized (this) {
+                if (!closed && outputFormat != null) {
+                    idle.add(new Idle(lease.codec, lease.config, outputFormat));
+                    return;
+                }
+            }
+            try {
+                lease.codec.stop();
+            } catch (RuntimeException ignored) {
+                // Already in an error state; release below still frees it
+            }
+            releaseQuietly(lease.codec);
+        } finally {
+            busy.release();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Idle entry : idle) {
+            try {
+                entry.codec.stop();
+            } catch (RuntimeException ignored) {
+                // Releasing anyway
+            }
+            releaseQuietly(entry.codec);
+        }
+        idle.clear();
+        if (created + reused > 1) {
+            Log.d(TAG, "📊 Encoder pool: " + created + " created, " + reused + " reused");
+        }
+    }
+
+    private static void releaseQuietly(MediaCodec codec) {
+        try {
+            codec.release();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Error releasing encoder", e);
+        }
+    }
+}
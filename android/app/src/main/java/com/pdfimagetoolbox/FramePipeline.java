@@ -0,0 +1,129 @@
+// android/app/src/main/java/com/pdfimagetoolbox/FramePipeline.java
+package com.pdfimagetoolbox;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded decode → convert stage for slideshow encoding.
+ *
+ * Worker threads render upcoming images (in timeline order) into a small pool of
+ * recycled YuvFrames while the encoder consumes the current one. The codec loop
+ * only calls take() at image boundaries and recycle() when it is done with a
+ * frame, so it never waits on JPEG decoding unless the workers fall behind.
+ *
+ * Frames are handed out strictly in image order. At most bufferCount frames are
+ * in flight (one being encoded, the rest prefetched), which caps memory use.
+ */
+public final class FramePipeline implements AutoCloseable {
+    // How often a blocked take() checks whether its job was cancelled
+    private static final long CANCEL_POLL_MS = 50;
+
+    /** Renders one image into a (reused) frame. Called on a worker thread. */
+    public interface Renderer {
+        void render(int imageIndex, YuvFrame out) throws Exception;
+    }
+
+    private final int imageCount;
+    private final Renderer renderer;
+    private final ExecutorService workers;
+    private final BlockingQueue<YuvFrame> freeFrames;
+    private final ArrayDeque<Future<YuvFrame>> pending = new ArrayDeque<>();
+    private int nextToSchedule = 0;
+    private int nextToTake = 0;
+
+    public FramePipeline(int imageCount, int bufferCount, int workerCount, Renderer renderer) {
+        this.imageCount = imageCount;
+        this.renderer = renderer;
+        this.freeFrames = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeFrames.add(new YuvFrame());
+        }
+        this.workers = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+        schedule();
+    }
+
+    /**
+     * Worker count for this device: leave one core for the codec loop, never use
+     * more workers than there are prefetch slots.
+     */
+    public static int defaultWorkerCount(int bufferCount) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(bufferCount - 1, cores - 1));
+    }
+
+    /**
+     * Blocks until the frame for imageIndex is ready, or throws once job is
+     * cancelled while waiting. Must be called in order.
+     */
+    public YuvFrame take(int imageIndex, RenderJob job) throws Exception {
+        if (imageIndex != nextToTake) {
+            throw new IllegalStateException("Frames must be taken in order: expected "
+                + nextToTake + " but got " + imageIndex);
+        }
+        schedule();
+        Future<YuvFrame> future = pending.poll();
+        if (future == null) {
+            throw new IllegalStateException("No frame scheduled for image " + imageIndex
+                + " - recycle the previous frame first");
+        }
+        nextToTake++;
+        while (true) {
+            job.throwIfCancelled();
+            try {
+                return future.get(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Workers still rendering - check for cancellation and keep waiting
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            }
+        }
+    }
+
+    /** Returns a frame to the pool and lets the workers prefetch the next image. */
+    public void recycle(YuvFrame frame) {
+        if (frame == null) return;
+        freeFrames.offer(frame);
+        schedule();
+    }
+
+    private void schedule() {
+        while (nextToSchedule < imageCount) {
+            final YuvFrame frame = freeFrames.poll();
+            if (frame == null) return;
+            final int imageIndex = nextToSchedule++;
+            pending.add(workers.submit(() -> {
+                renderer.render(imageIndex, frame);
+                return frame;
+            }));
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        pending.clear();
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "VideoMaker-decode-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+// android/app/src/main/java/com/pdfimagetoolbox/MediaRemuxer.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies compressed tracks from existing files into one MP4 without
+ * re-encoding, always writing the track whose next sample has the lowest
+ * presentation time - so audio and video chunks are properly interleaved.
+ *
+ * Each output track is a sequence of segments (a track of some file, shifted
+ * by offsetUs and cut at maxDurationUs), which covers adding a soundtrack,
+ * looping it, and concatenating separately encoded video parts.
+ *
+ * All samples pass through one direct ByteBuffer sized from the largest
+ * KEY_MAX_INPUT_SIZE of the inputs.
+ */
+public final class MediaRemuxer {
+    private static final String TAG = "MediaRemuxer";
+    private static final int DEFAULT_AUDIO_SAMPLE_SIZE = 256 * 1024;
+
+    private static final class Segment {
+        final String path;
+        final int trackIndex;
+        final long offsetUs;
+        final long maxDurationUs;
+
+        Segment(String path, int trackIndex, long offsetUs, long maxDurationUs) {
+            this.path = path;
+            this.trackIndex = trackIndex;
+            this.offsetUs = offsetUs;
+            this.maxDurationUs = maxDurationUs;
+        }
+    }
+
+    private static final class OutputTrack {
+        final MediaFormat format;
+        final List<Segment> segments = new ArrayList<>();
+        int muxerIndex = -1;
+        int segmentIndex = -1;
+        MediaExtractor extractor;
+        long maxTimeUs = -1;      // latest output time written so far
+        long joinShiftUs = 0;     // pushes the current segment past the previous one
+
+        OutputTrack(MediaFormat format) {
+            this.format = format;
+        }
+    }
+
+    private final List<OutputTrack> tracks = new ArrayList<>();
+    private ByteBuffer buffer;
+    private int samplesWritten = 0;
+
+    /**
+     * Starts a new output track with the first track of path whose MIME starts
+     * with mimePrefix ("video/" or "audio/").
+     *
+     * @return output track id for appendSegment(), or -1 if path has no such track
+     */
+    public int addTrack(String path, String mimePrefix, long offsetUs, long maxDurationUs) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(path);
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith(mimePrefix)) {
+                    return addTrack(path, i, format, offsetUs, maxDurationUs);
+                }
+            }
+            return -1;
+        } finally {
+            extractor.release();
+        }
+    }
+
+    /** As above, for a track already located (e.g. by AudioProbe) - path is not opened until writeTo(). */
+    public int addTrack(String path, int trackIndex, MediaFormat format, long offsetUs, long maxDurationUs) {
+        OutputTrack track = new OutputTrack(format);
+        track.segments.add(new Segment(path, trackIndex, offsetUs, maxDurationUs));
+        tracks.add(track);
+        ensureBuffer(maxSampleSize(format));
+        return tracks.size() - 1;
+    }
+
+    /**
+     * Appends a segment to an output track: samples of path's matching track
+     * play from offsetUs on. Only the first format is written to the file, so
+     * a segment whose codec config (csd-0 / csd-1) differs is not added.
+     *
+     * @return false if the segment's codec config does not match the track
+     */
+    public boolean appendSegment(int trackId, String path, long offsetUs, long maxDurationUs) throws IOException {
+        String mimePrefix = tracks.get(trackId).format.getString(MediaFormat.KEY_MIME).startsWith("video/") ? "video/" : "audio/";
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(path);
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith(mimePrefix)) {
+                    return appendSegment(trackId, path, i, format, offsetUs, maxDurationUs);
+                }
+            }
+            throw new IOException("No " + mimePrefix + " track in " + path);
+        } finally {
+            extractor.release();
+        }
+    }
+
+    /** As above, for a track already located - path is not opened until writeTo(). */
+    public boolean appendSegment(int trackId, String path, int trackIndex, MediaFormat format,
+                                 long offsetUs, long maxDurationUs) {
+        OutputTrack track = tracks.get(trackId);
+        if (!sameCodecConfig(track.format, format)) {
+            Log.w(TAG, "⚠️  Codec config of " + path + " differs from the track's");
+            return false;
+        }
+        track.segments.add(new Segment(path, trackIndex, offsetUs, maxDurationUs));
+        ensureBuffer(maxSampleSize(format));
+        return true;
+    }
+
+    public MediaFormat getTrackFormat(int trackId) {
+        return tracks.get(trackId).format;
+    }
+
+    public int getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    /** Writes every segment of every track into output, interleaved by time. */
+    public void writeTo(File output) throws IOException {
+        if (tracks.isEmpty()) throw new IOException("Nothing to remux");
+        MediaMuxer muxer = new MediaMuxer(output.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+        boolean started = false;
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        try {
+            for (OutputTrack track : tracks) {
+                track.muxerIndex = muxer.addTrack(sanitizeMediaFormat(track.format));
+            }
+            muxer.start();
+            started = true;
+
+            while (true) {
+                OutputTrack next = null;
+                long nextTimeUs = Long.MAX_VALUE;
+                for (OutputTrack track : tracks) {
+                    long t = peekTimeUs(track);
+                    if (t >= 0 && t < nextTimeUs) {
+                        next = track;
+                        nextTimeUs = t;
+                    }
+                }
+                if (next == null) break;
+
+                buffer.clear();
+                int size = next.extractor.readSampleData(buffer, 0);
+                if (size < 0) {
+                    next.extractor.advance();
+                    continue;
+                }
+                info.set(0, size, nextTimeUs, toBufferFlags(next.extractor.getSampleFlags()));
+                muxer.writeSampleData(next.muxerIndex, buffer, info);
+                samplesWritten++;
+                next.maxTimeUs = Math.max(next.maxTimeUs, nextTimeUs);
+                next.extractor.advance();
+            }
+            Log.d(TAG, "✅ Remuxed " + samplesWritten + " samples from " + tracks.size() + " track(s)");
+        } finally {
+            for (OutputTrack track : tracks) {
+                if (track.extractor != null) {
+                    track.extractor.release();
+                    track.extractor = null;
+                }
+            }
+            try {
+                if (started) muxer.stop();
+            } finally {
+                muxer.release();
+            }
+        }
+    }
+
+    /**
+     * Output time of the track's next sample, opening the following segment
+     * when the current one is exhausted. -1 when the track is finished.
+     */
+    private long peekTimeUs(OutputTrack track) throws IOException {
+        while (true) {
+            if (track.extractor != null) {
+                Segment segment = track.segments.get(track.segmentIndex);
+                long sampleTime = track.extractor.getSampleTime();
+                if (sampleTime >= 0 && sampleTime < segment.maxDurationUs) {
+                    // Within a segment times pass through untouched - B-frames are out of order by design
+                    return segment.offsetUs + sampleTime + track.joinShiftUs;
+                }
+                track.extractor.release();
+                track.extractor = null;
+            }
+            if (track.segmentIndex + 1 >= track.segments.size()) return -1;
+
+            Segment segment = track.segments.get(++track.segmentIndex);
+            MediaExtractor extractor = new MediaExtractor();
+            extractor.setDataSource(segment.path);
+            extractor.selectTrack(segment.trackIndex);
+            track.extractor = extractor;
+
+            // Segment edges may overlap by a frame; the muxer rejects a join that goes backwards
+            track.joinShiftUs = 0;
+            long firstTimeUs = extractor.getSampleTime();
+            if (track.maxTimeUs >= 0 && firstTimeUs >= 0 && segment.offsetUs + firstTimeUs <= track.maxTimeUs) {
+                track.joinShiftUs = track.maxTimeUs + 1 - (segment.offsetUs + firstTimeUs);
+            }
+        }
+    }
+
+    // Key fix: Sanitize MediaFormat before adding to muxer to avoid IllegalStateException
+    static MediaFormat sanitizeMediaFormat(MediaFormat format) {
+        try {
+            String mime = format.getString(MediaFormat.KEY_MIME);
+            
+            if (mime.startsWith("video/")) {
+                int width = format.getInteger(MediaFormat.KEY_WIDTH);
+                int height = format.getInteger(MediaFormat.KEY_HEIGHT);
+                MediaFormat newFormat = MediaFormat.createVideoFormat(mime, width, height);
+                
+                // Copy only safe, essential keys
+                if (format.containsKey(MediaFormat.KEY_COLOR_FORMAT)) {
+                    newFormat.setInteger(MediaFormat.KEY_COLOR_FORMAT, 
+                        format.getInteger(MediaFormat.KEY_COLOR_FORMAT));
+                }
+                if (format.containsKey(MediaFormat.KEY_BIT_RATE)) {
+                    newFormat.setInteger(MediaFormat.KEY_BIT_RATE, 
+                        format.getInteger(MediaFormat.KEY_BIT_RATE));
+                }
+                if (format.containsKey(MediaFormat.KEY_FRAME_RATE)) {
+                    newFormat.setInteger(MediaFormat.KEY_FRAME_RATE, 
+                        format.getInteger(MediaFormat.KEY_FRAME_RATE));
+                }
+                if (format.containsKey(MediaFormat.KEY_I_FRAME_INTERVAL)) {
+                    newFormat.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 
+                        format.getInteger(MediaFormat.KEY_I_FRAME_INTERVAL));
+                }
+                
+                // Copy CSD buffers (codec-specific data)
+                for (int i = 0; i < 3; i++) {
+                    String csdKey = "csd-" + i;
+                    if (format.containsKey(csdKey)) {
+                        newFormat.setByteBuffer(csdKey, format.getByteBuffer(csdKey));
+                    }
+                }
+                
+                return newFormat;
+                
+            } else if (mime.startsWith("audio/")) {
+                int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                MediaFormat newFormat = MediaFormat.createAudioFormat(mime, sampleRate, channelCount);
+                
+                if (format.containsKey(MediaFormat.KEY_BIT_RATE)) {
+                    newFormat.setInteger(MediaFormat.KEY_BIT_RATE, 
+                        format.getInteger(MediaFormat.KEY_BIT_RATE));
+                }
+                if (format.containsKey(MediaFormat.KEY_AAC_PROFILE)) {
+                    newFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, 
+                        format.getInteger(MediaFormat.KEY_AAC_PROFILE));
+                }
+                if (format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)) {
+                    newFormat.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 
+                        format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE));
+                }
+                
+                // Copy CSD buffers
+                for (int i = 0; i < 3; i++) {
+                    String csdKey = "csd-" + i;
+                    if (format.containsKey(csdKey)) {
+                        newFormat.setByteBuffer(csdKey, format.getByteBuffer(csdKey));
+                    }
+                }
+                
+                return newFormat;
+            }
+            
+            return format;
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error sanitizing format", e);
+            return format;
+        }
+    }
+
+    private static boolean sameCodecConfig(MediaFormat a, MediaFormat b) {
+        for (String key : new String[] {"csd-0", "csd-1"}) {
+            ByteBuffer csdA = a.containsKey(key) ? a.getByteBuffer(key) : null;
+            ByteBuffer csdB = b.containsKey(key) ? b.getByteBuffer(key) : null;
+            if (csdA == null ? csdB != null : !csdA.equals(csdB)) return false;
+        }
+        return true;
+    }
+
+    private static int toBufferFlags(int sampleFlags) {
+        return (sampleFlags & MediaExtractor.SAMPLE_FLAG_SYNC) != 0 ? MediaCodec.BUFFER_FLAG_KEY_FRAME : 0;
+    }
+
+    private static int maxSampleSize(MediaFormat format) {
+        if (format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)) {
+            return format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE);
+        }
+        String mime = format.getString(MediaFormat.KEY_MIME);
+        if (mime != null && mime.startsWith("video/")) {
+            // An uncompressed frame is a safe upper bound for one compressed sample
+            return YuvPlanes.packedSize(format.getInteger(MediaFormat.KEY_WIDTH), format.getInteger(MediaFormat.KEY_HEIGHT));
+        }
+        return DEFAULT_AUDIO_SAMPLE_SIZE;
+    }
+
+    private void ensureBuffer(int size) {
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+}
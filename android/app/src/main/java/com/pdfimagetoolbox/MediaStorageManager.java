@@ -0,0 +1,241 @@
+// android/app/src/main/java/com/pdfimagetoolbox/MediaStorageManager.java
+package com.pdfimagetoolbox;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Owns every file the video maker writes and keeps it bounded:
+ *
+ * - Rendered videos (filesDir/videos) are the user's outputs and are only
+ *   removed by deleteVideo() - until markExported() records that the UI has
+ *   copied one out (to Downloads). From then on it is a spare copy and can be
+ *   evicted like a preview.
+ * - Previews (cache/video_previews): only the newest few are kept.
+ * - Previews and exported videos share a byte budget with the unexported
+ *   outputs and are evicted least recently used first; the newest file is
+ *   never evicted. Unexported outputs may keep usage over budget.
+ * - Intermediates (.partN segments, .faststart rewrites, transcode .tmp files
+ *   and temp files left by older versions) only exist while a job runs; any
+ *   found at startup belong to a job that died, and sweepOrphans() removes them.
+ *
+ * Recency is the file's lastModified, bumped on commit and touch().
+ */
+public final class MediaStorageManager {
+    private static final String TAG = "MediaStorage";
+    private static final String VIDEO_SUFFIX = ".mp4";
+    // Empty marker next to a video the UI has copied out, e.g. video_1.mp4.exported
+    private static final String EXPORTED_SUFFIX = ".exported";
+    private static final String[] TEMP_MARKERS = {".part", ".faststart", ".tmp"};
+    // Cache-dir temp files of earlier releases, which could leak them when a render threw
+    private static final String[] LEGACY_TEMP_PREFIXES = {"temp_video_", "temp_slideshow_", "looped_audio_", "converted_"};
+
+    /** Bytes on disk per category, as reported to JS. */
+    public static final class Usage {
+        public long videoBytes;
+        public int videoCount;
+        public long previewBytes;
+        public long transcodeCacheBytes;
+        public long tempBytes;
+        public long budgetBytes;
+    }
+
+    private final File videosDir;
+    private final File previewsDir;
+    private final File transcodeDir;
+    private final File cacheDir;
+    private final long budgetBytes;
+    private final int previewsKept;
+
+    public MediaStorageManager(File filesDir, File cacheDir, long budgetBytes, int previewsKept) {
+        this.videosDir = new File(filesDir, "videos");
+        this.previewsDir = new File(cacheDir, "video_previews");
+        this.transcodeDir = new File(cacheDir, "transcode_cache");
+        this.cacheDir = cacheDir;
+        this.budgetBytes = budgetBytes;
+        this.previewsKept = Math.max(1, previewsKept);
+    }
+
+    public File getTranscodeDir() {
+        return transcodeDir;
+    }
+
+    /** A fresh path for a final render. Publish it with commit() once complete. */
+    public File newOutputFile() throws IOException {
+        ensureDir(videosDir);
+        return new File(videosDir, "video_" + System.currentTimeMillis() + VIDEO_SUFFIX);
+    }
+
+    /** A fresh path for a preview; older previews beyond the kept count are dropped now. */
+    public synchronized File newPreviewFile() throws IOException {
+        ensureDir(previewsDir);
+        File[] previews = listVideos(previewsDir);
+        if (previews.length >= previewsKept) {
+            Arrays.sort(previews, Comparator.comparingLong(File::lastModified).reversed());
+            for (int i = previewsKept - 1; i < previews.length; i++) {
+                delete(previews[i]);
+            }
+        }
+        return new File(previewsDir, "preview_" + System.currentTimeMillis() + VIDEO_SUFFIX);
+    }
+
+    /** Marks a finished file as most recently used and brings storage back under budget. */
+    public synchronized void commit(File file) {
+        file.setLastModified(System.currentTimeMillis());
+        trim(file);
+    }
+
+    /** Records that the UI copied a rendered video out, so it may be evicted from now on. */
+    public synchronized boolean markExported(File file) throws IOException {
+        if (!isManaged(file) || !file.isFile()) return false;
+        File marker = exportedMarker(file);
+        return marker.exists() || marker.createNewFile();
+    }
+
+    /** Deletes a rendered video or preview the user no longer wants. */
+    public synchronized boolean deleteVideo(File file) {
+        if (!isManaged(file) || !file.isFile()) return false;
+        exportedMarker(file).delete();
+        return delete(file);
+    }
+
+    /** Marks a file the UI is using again, so eviction picks older ones first. */
+    public synchronized boolean touch(File file) {
+        if (!isManaged(file) || !file.isFile()) return false;
+        return file.setLastModified(System.currentTimeMillis());
+    }
+
+    // Evicts least recently used previews and exported videos (never keep) until under budget
+    private void trim(File keep) {
+        List<File> evictable = new ArrayList<>();
+        long total = 0;
+        for (File f : listVideos(videosDir)) {
+            total += f.length();
+            if (exportedMarker(f).exists()) evictable.add(f);
+        }
+        for (File f : listVideos(previewsDir)) {
+            total += f.length();
+            evictable.add(f);
+        }
+        if (total <= budgetBytes) return;
+
+        Collections.sort(evictable, Comparator.comparingLong(File::lastModified));
+        for (File f : evictable) {
+            if (total <= budgetBytes) break;
+            if (f.equals(keep)) continue;
+            long size = f.length();
+            if (delete(f)) {
+                exportedMarker(f).delete();
+                total -= size;
+                Log.d(TAG, "🗑️  Evicted " + f.getName() + " (" + size + " bytes)");
+            }
+        }
+        if (total > budgetBytes) {
+            Log.d(TAG, "💾 " + total + " bytes kept, over the " + budgetBytes + " byte budget - unexported videos are not evicted");
+        }
+    }
+
+    /**
+     * Deletes intermediates last modified before cutoffMs - pass the process
+     * start time so files of jobs started since are left alone.
+     *
+     * @return bytes freed
+     */
+    public long sweepOrphans(long cutoffMs) {
+        long freed = 0;
+        int count = 0;
+        for (File dir : new File[] {videosDir, previewsDir, transcodeDir, cacheDir}) {
+            File[] files = dir.listFiles();
+            if (files == null) continue;
+            for (File f : files) {
+                if (!f.isFile() || f.lastModified() >= cutoffMs || !(isTemp(dir, f.getName()) || isStaleMarker(dir, f))) continue;
+                long size = f.length();
+                if (delete(f)) {
+                    freed += size;
+                    count++;
+                }
+            }
+        }
+        if (count > 0) {
+            Log.d(TAG, "🧹 Swept " + count + " orphaned temp file(s), " + freed + " bytes");
+        }
+        return freed;
+    }
+
+    public synchronized Usage getUsage() {
+        Usage usage = new Usage();
+        for (File f : listVideos(videosDir)) {
+            usage.videoBytes += f.length();
+            usage.videoCount++;
+        }
+        for (File f : listVideos(previewsDir)) {
+            usage.previewBytes += f.length();
+        }
+        File[] cached = transcodeDir.listFiles();
+        if (cached != null) {
+            for (File f : cached) usage.transcodeCacheBytes += f.length();
+        }
+        for (File dir : new File[] {videosDir, previewsDir, cacheDir}) {
+            File[] files = dir.listFiles();
+            if (files == null) continue;
+            for (File f : files) {
+                if (f.isFile() && isTemp(dir, f.getName())) usage.tempBytes += f.length();
+            }
+        }
+        usage.budgetBytes = budgetBytes;
+        return usage;
+    }
+
+    private boolean isManaged(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        return videosDir.getAbsoluteFile().equals(parent) || previewsDir.getAbsoluteFile().equals(parent);
+    }
+
+    private static File exportedMarker(File video) {
+        return new File(video.getParentFile(), video.getName() + EXPORTED_SUFFIX);
+    }
+
+    // An export marker whose video is gone (deleted outside this class)
+    private boolean isStaleMarker(File dir, File file) {
+        String name = file.getName();
+        return dir.equals(videosDir) && name.endsWith(EXPORTED_SUFFIX)
+            && !new File(dir, name.substring(0, name.length() - EXPORTED_SUFFIX.length())).exists();
+    }
+
+    // The shared cache root is only searched for the legacy names; other modules keep files there too
+    private boolean isTemp(File dir, String name) {
+        for (String prefix : LEGACY_TEMP_PREFIXES) {
+            if (name.startsWith(prefix)) return true;
+        }
+        if (dir.equals(cacheDir)) return false;
+        for (String marker : TEMP_MARKERS) {
+            if (name.contains(marker)) return true;
+        }
+        return false;
+    }
+
+    // Finished videos only - in-flight intermediates carry a temp marker after ".mp4"
+    private static File[] listVideos(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(VIDEO_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private static void ensureDir(File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory " + dir);
+        }
+    }
+
+    private static boolean delete(File file) {
+        if (file.delete()) return true;
+        Log.w(TAG, "⚠️  Could not delete " + file.getName());
+        return false;
+    }
+}
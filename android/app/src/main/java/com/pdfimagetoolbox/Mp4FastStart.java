@@ -0,0 +1,156 @@
+// android/app/src/main/java/com/pdfimagetoolbox/Mp4FastStart.java
+package com.pdfimagetoolbox;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Moves the 'moov' box of an MP4 in front of 'mdat' ("fast start") so players
+ * and upload services can start without seeking to the end of the file.
+ * MediaMuxer always writes moov last.
+ *
+ * The rewrite is a single streaming pass: moov (a few KB) is read into memory,
+ * its chunk offsets (stco / co64) are shifted by its own size, and everything
+ * else is copied channel-to-channel.
+ */
+public final class Mp4FastStart {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MOOV = fourCC("moov");
+    private static final int MDAT = fourCC("mdat");
+    private static final int TRAK = fourCC("trak");
+    private static final int MDIA = fourCC("mdia");
+    private static final int MINF = fourCC("minf");
+    private static final int STBL = fourCC("stbl");
+    private static final int STCO = fourCC("stco");
+    private static final int CO64 = fourCC("co64");
+
+    private Mp4FastStart() {
+    }
+
+    /**
+     * Writes a fast-start copy of input to output.
+     *
+     * @return false (and output untouched) when input is already fast-start or
+     *         cannot be relocated safely - callers then keep input as is.
+     */
+    public static boolean process(File input, File output) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(input, "r")) {
+            FileChannel channel = in.getChannel();
+            long fileSize = channel.size();
+
+            long moovOffset = -1, moovSize = 0, mdatOffset = -1;
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(16);
+            while (offset + HEADER_SIZE <= fileSize) {
+                header.clear();
+                header.limit(HEADER_SIZE);
+                channel.read(header, offset);
+                header.flip();
+                long size = header.getInt() & 0xFFFFFFFFL;
+                int type = header.getInt();
+                if (size == 1) {
+                    header.clear();
+                    header.limit(8);
+                    channel.read(header, offset + HEADER_SIZE);
+                    header.flip();
+                    size = header.getLong();
+                } else if (size == 0) {
+                    size = fileSize - offset;
+                }
+                if (size < HEADER_SIZE) return false; // corrupt
+
+                if (type == MOOV) {
+                    moovOffset = offset;
+                    moovSize = size;
+                } else if (type == MDAT && mdatOffset < 0) {
+                    mdatOffset = offset;
+                }
+                offset += size;
+            }
+
+            if (moovOffset < 0 || mdatOffset < 0 || moovOffset < mdatOffset) return false;
+            if (moovSize > Integer.MAX_VALUE) return false;
+
+            ByteBuffer moov = ByteBuffer.allocate((int) moovSize);
+            channel.read(moov, moovOffset);
+            moov.flip();
+            if (!shiftChunkOffsets(moov, 0, moov.limit(), moovSize)) return false;
+
+            try (RandomAccessFile out = new RandomAccessFile(output, "rw")) {
+                out.setLength(0);
+                FileChannel target = out.getChannel();
+                transfer(channel, 0, mdatOffset, target);
+                moov.rewind();
+                while (moov.hasRemaining()) {
+                    target.write(moov);
+                }
+                transfer(channel, mdatOffset, moovOffset - mdatOffset, target);
+                long afterMoov = moovOffset + moovSize;
+                transfer(channel, afterMoov, fileSize - afterMoov, target);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Walks the boxes in [start, end) of buf, descending into the containers
+     * on the path to the sample tables, and adds delta to every chunk offset.
+     * Returns false if a 32-bit offset would overflow.
+     */
+    private static boolean shiftChunkOffsets(ByteBuffer buf, int start, int end, long delta) {
+        int pos = start;
+        while (pos + HEADER_SIZE <= end) {
+            long size = buf.getInt(pos) & 0xFFFFFFFFL;
+            int type = buf.getInt(pos + 4);
+            int headerSize = HEADER_SIZE;
+            if (size == 1) {
+                size = buf.getLong(pos + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - pos;
+            }
+            if (size < headerSize || pos + size > end) return false;
+            int boxEnd = (int) (pos + size);
+
+            if (type == MOOV || type == TRAK || type == MDIA
+                || type == MINF || type == STBL) {
+                if (!shiftChunkOffsets(buf, pos + headerSize, boxEnd, delta)) return false;
+            } else if (type == STCO) {
+                // version/flags (4) + entry count (4) + 32-bit offsets
+                int count = buf.getInt(pos + headerSize + 4);
+                int entry = pos + headerSize + 8;
+                for (int i = 0; i < count; i++, entry += 4) {
+                    long shifted = (buf.getInt(entry) & 0xFFFFFFFFL) + delta;
+                    if (shifted > 0xFFFFFFFFL) return false;
+                    buf.putInt(entry, (int) shifted);
+                }
+            } else if (type == CO64) {
+                int count = buf.getInt(pos + headerSize + 4);
+                int entry = pos + headerSize + 8;
+                for (int i = 0; i < count; i++, entry += 8) {
+                    buf.putLong(entry, buf.getLong(entry) + delta);
+                }
+            }
+            pos = boxEnd;
+        }
+        return true;
+    }
+
+    private static void transfer(FileChannel source, long position, long count, FileChannel target)
+        throws IOException {
+        long done = 0;
+        while (done < count) {
+            long n = source.transferTo(position + done, count - done, target);
+            if (n <= 0) throw new IOException("Short transfer at " + (position + done));
+            done += n;
+        }
+    }
+
+    private static int fourCC(String type) {
+        return (type.charAt(0) << 24) | (type.charAt(1) << 16) | (type.charAt(2) << 8) | type.charAt(3);
+    }
+}
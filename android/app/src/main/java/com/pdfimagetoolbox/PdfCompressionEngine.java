@@ -0,0 +1,281 @@
+// android/app/src/main/java/com/pdfimagetoolbox/PdfCompressionEngine.java
+package com.pdfimagetoolbox;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The one PDF compressor behind PdfCompressor.compressPdf (and the older
+ * PdfResizer.compressPdf). Every page is profiled (PdfPageProfiler), then the
+ * document is compressed with the cheapest strategy that works per page:
+ *
+ * - LOSSLESS: rewrite with full compression - object and xref streams, Flate
+ *   at the best level, identical objects stored once. Text and vector
+ *   graphics are untouched, so text-only files shrink without becoming images.
+ *   Every page gets this.
+ * - IMAGES: in the same rewrite, the images of image and scanned pages are
+ *   re-encoded as JPEG and downscaled (PdfImageRecompressor); vector pages
+ *   keep theirs.
+ * - RASTERIZE: every page rendered with PdfRenderer and stored as a JPEG
+ *   (PdfRasterizer). Only used when iText cannot parse or write the file -
+ *   pdfium is far more lenient - since it loses the text layer.
+ *
+ * Phase timings are kept per run and reported to JS with the strategy.
+ */
+public final class PdfCompressionEngine {
+    private static final String TAG = "PdfCompressionEngine";
+
+    public enum Strategy {
+        LOSSLESS("lossless_rewrite"),
+        IMAGES("image_recompression"),
+        RASTERIZE("rasterize");
+
+        final String key;
+
+        Strategy(String key) {
+            this.key = key;
+        }
+    }
+
+    public enum Quality {
+        //   image JPEG q, max image edge, scan DPI, raster DPI, raster JPEG q
+        LOW(30, 1200, 100, 72, 40),
+        MEDIUM(60, 2000, 150, 108, 60),
+        HIGH(80, 3000, 200, 144, 80);
+
+        final int imageJpegQuality;
+        final int maxImageEdge;
+        final int scanDpi;
+        final int rasterDpi;
+        final int rasterJpegQuality;
+
+        Quality(int imageJpegQuality, int maxImageEdge, int scanDpi, int rasterDpi, int rasterJpegQuality) {
+            this.imageJpegQuality = imageJpegQuality;
+            this.maxImageEdge = maxImageEdge;
+            this.scanDpi = scanDpi;
+            this.rasterDpi = rasterDpi;
+            this.rasterJpegQuality = rasterJpegQuality;
+        }
+
+        /** "low" / "medium" / "high" as sent by the UI; anything else is medium. */
+        public static Quality from(String name) {
+            if ("low".equalsIgnoreCase(name)) return LOW;
+            if ("high".equalsIgnoreCase(name)) return HIGH;
+            return MEDIUM;
+        }
+    }
+
+    public enum Phase {
+        PROFILE("profile"),     // parse + per-page content scan
+        IMAGES("images"),       // image XObject re-encoding
+        WRITE("write"),         // serialising the rewritten document
+        RASTERIZE("rasterize"); // render + JPEG + write, fallback path
+
+        final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Per-page classification rolled up for the document. Every page that
+     * draws an image votes on it: a vector page votes to keep it as is, which
+     * overrides everything else; otherwise the image gets a target - the
+     * longest edge in pixels, the most generous one when pages disagree.
+     */
+    public static final class Profile {
+        public final int pageCount;
+        public final int imageCount;
+        public final long imageBytes;
+        public final long fileBytes;
+        final int[] pagesByKind = new int[PdfPageProfiler.Kind.values().length];
+        final Map<PdfStream, Integer> imageTargets = new IdentityHashMap<>();
+
+        private Profile(int pageCount, int imageCount, long imageBytes, long fileBytes) {
+            this.pageCount = pageCount;
+            this.imageCount = imageCount;
+            this.imageBytes = imageBytes;
+            this.fileBytes = fileBytes;
+        }
+
+        public int getPages(PdfPageProfiler.Kind kind) {
+            return pagesByKind[kind.ordinal()];
+        }
+
+        static Profile scan(PdfDocument doc, long fileBytes, Quality quality) throws IOException {
+            PdfPageProfiler profiler = new PdfPageProfiler();
+            List<PdfPageProfiler.PageProfile> pages = new ArrayList<>();
+            Set<PdfStream> images = Collections.newSetFromMap(new IdentityHashMap<PdfStream, Boolean>());
+            long imageBytes = 0;
+            for (int n = 1; n <= doc.getNumberOfPages(); n++) {
+                PdfPageProfiler.PageProfile page = profiler.profile(doc.getPage(n), n);
+                pages.add(page);
+                for (PdfStream image : page.imageEdgesPt.keySet()) {
+                    if (images.add(image)) imageBytes += image.getLength();
+                }
+            }
+
+            Profile profile = new Profile(pages.size(), images.size(), imageBytes, fileBytes);
+            Set<PdfStream> keep = Collections.newSetFromMap(new IdentityHashMap<PdfStream, Boolean>());
+            for (PdfPageProfiler.PageProfile page : pages) {
+                profile.pagesByKind[page.kind.ordinal()]++;
+                for (Map.Entry<PdfStream, Float> entry : page.imageEdgesPt.entrySet()) {
+                    int target = targetEdge(page.kind, entry.getValue(), quality);
+                    if (target <= 0) {
+                        keep.add(entry.getKey());
+                        continue;
+                    }
+                    Integer known = profile.imageTargets.get(entry.getKey());
+                    if (known == null || target > known) profile.imageTargets.put(entry.getKey(), target);
+                }
+            }
+            // One stream serves every page that draws it; re-encoding for one page would degrade a vector page's copy
+            profile.imageTargets.keySet().removeAll(keep);
+            return profile;
+        }
+
+        /**
+         * Vector pages keep their images (0, the keep-original vote). Image
+         * pages cap them at the quality's long edge. A scan is resampled to the
+         * page's size at the scan DPI - what rasterising the page would
+         * produce, minus pdfium and with any OCR text layer kept.
+         */
+        private static int targetEdge(PdfPageProfiler.Kind kind, float drawnEdgePt, Quality quality) {
+            switch (kind) {
+                case IMAGES:
+                    return quality.maxImageEdge;
+                case SCANNED:
+                    return Math.min(quality.maxImageEdge, Math.max(1, (int) Math.ceil(drawnEdgePt * quality.scanDpi / 72f)));
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    public static final class Result {
+        public final long originalSize;
+        public long compressedSize;
+        public Strategy strategy;
+        public Profile profile;
+        public int imagesRecompressed;
+        public int pagesRasterized;
+        private final long[] phaseNanos = new long[Phase.values().length];
+
+        Result(long originalSize) {
+            this.originalSize = originalSize;
+        }
+
+        long begin() {
+            return System.nanoTime();
+        }
+
+        void end(Phase phase, long beginNanos) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - beginNanos;
+        }
+
+        public long getPhaseMs(Phase phase) {
+            return phaseNanos[phase.ordinal()] / 1000000L;
+        }
+
+        /** Percent saved; negative if the output grew. */
+        public double getCompressionRatio() {
+            return originalSize > 0 ? (1 - (double) compressedSize / originalSize) * 100 : 0;
+        }
+    }
+
+    private final Context context;
+
+    public PdfCompressionEngine(Context context) {
+        this.context = context;
+    }
+
+    public Result compress(File input, File output, Quality quality) throws Exception {
+        Result result = new Result(input.length());
+        try {
+            rewrite(input, output, quality, result);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "⚠️  iText could not rewrite the document, rasterizing instead: " + e.getMessage());
+            if (output.exists()) output.delete();
+            result.strategy = Strategy.RASTERIZE;
+            result.imagesRecompressed = 0;
+            long start = result.begin();
+            result.pagesRasterized = new PdfRasterizer(context, quality.rasterDpi, quality.rasterJpegQuality)
+                .rasterize(input, output);
+            result.end(Phase.RASTERIZE, start);
+        }
+        result.compressedSize = output.length();
+        Log.d(TAG, "✅ " + result.strategy.key + ": " + (result.originalSize / 1024) + "KB → "
+            + (result.compressedSize / 1024) + "KB (" + String.format("%.1f", result.getCompressionRatio()) + "% reduction)");
+        return result;
+    }
+
+    private void rewrite(File input, File output, Quality quality, Result result) throws IOException {
+        long start = result.begin();
+        PdfReader reader = new PdfReader(input.getAbsolutePath());
+        PdfWriter writer = null;
+        PdfDocument doc;
+        try {
+            writer = new PdfWriter(output.getAbsolutePath(), new WriterProperties()
+                .setFullCompressionMode(true)
+                .setCompressionLevel(CompressionConstants.BEST_COMPRESSION)
+                .useSmartMode());
+            doc = new PdfDocument(reader, writer);
+        } catch (IOException | RuntimeException e) {
+            // A document that failed to open does not own (or close) its reader and writer
+            try { reader.close(); } catch (Exception ignored) {}
+            try { if (writer != null) writer.close(); } catch (Exception ignored) {}
+            throw e;
+        }
+        boolean closed = false;
+        try {
+            Profile profile = Profile.scan(doc, result.originalSize, quality);
+            result.profile = profile;
+            result.end(Phase.PROFILE, start);
+            Log.d(TAG, "📊 " + profile.pageCount + " pages ("
+                + profile.getPages(PdfPageProfiler.Kind.VECTOR) + " vector, "
+                + profile.getPages(PdfPageProfiler.Kind.IMAGES) + " image, "
+                + profile.getPages(PdfPageProfiler.Kind.SCANNED) + " scanned), "
+                + profile.imageCount + " images (" + (profile.imageBytes / 1024) + "KB of "
+                + (profile.fileBytes / 1024) + "KB)");
+
+            // One output document either way; only the images of image and scanned pages are touched
+            result.strategy = profile.imageTargets.isEmpty() ? Strategy.LOSSLESS : Strategy.IMAGES;
+            if (result.strategy == Strategy.IMAGES) {
+                start = result.begin();
+                result.imagesRecompressed = new PdfImageRecompressor(quality.imageJpegQuality)
+                    .recompress(profile.imageTargets);
+                result.end(Phase.IMAGES, start);
+            }
+
+            start = result.begin();
+            closed = true;
+            doc.close();
+            result.end(Phase.WRITE, start);
+        } finally {
+            if (!closed) {
+                try {
+                    doc.close();
+                } catch (RuntimeException ignored) {
+                    // The output is discarded anyway
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+// android/app/src/main/java/com/pdfimagetoolbox/PdfImageRecompressor.java
+package com.pdfimagetoolbox;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfBoolean;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+/**
+ * Re-encodes image XObjects in place as JPEG, downscaling each to its own
+ * target long edge. Handles JPEG sources and raw 8-bit gray / RGB pixels (no
+ * filter, Flate or LZW); anything else - CMYK, indexed, 1-bit scans, JPX,
+ * JBIG2, Decode arrays - is left as is. A re-encode that is not smaller than
+ * the original stream is discarded, so the pass never grows the file.
+ */
+final class PdfImageRecompressor {
+    private static final String TAG = "PdfImageRecompressor";
+    // Below this the JPEG headers eat most of the saving
+    private static final int MIN_IMAGE_BYTES = 8 * 1024;
+
+    private final int jpegQuality;
+
+    PdfImageRecompressor(int jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * @param targets each image to re-encode -> its maximum long edge in pixels
+     * @return how many images were replaced
+     */
+    int recompress(Map<PdfStream, Integer> targets) {
+        int replaced = 0;
+        for (Map.Entry<PdfStream, Integer> target : targets.entrySet()) {
+            try {
+                if (recompress(target.getKey(), target.getValue())) replaced++;
+            } catch (Exception | OutOfMemoryError e) {
+                Log.w(TAG, "⚠️  Keeping image as is: " + e.getMessage());
+            }
+        }
+        Log.d(TAG, "Recompressed " + replaced + " of " + targets.size() + " images");
+        return replaced;
+    }
+
+    private boolean recompress(PdfStream image, int maxEdge) throws Exception {
+        if (image.getLength() < MIN_IMAGE_BYTES) return false;
+        if (PdfBoolean.TRUE.equals(image.getAsBoolean(PdfName.ImageMask))) return false;
+        if (image.containsKey(PdfName.Decode)) return false;
+        PdfNumber bitsPerComponent = image.getAsNumber(PdfName.BitsPerComponent);
+        if (bitsPerComponent == null || bitsPerComponent.intValue() != 8) return false;
+        int components = components(image.get(PdfName.ColorSpace));
+        if (components != 1 && components != 3) return false;
+
+        PdfObject filterObject = image.get(PdfName.Filter);
+        if (filterObject != null && filterObject.isArray()) {
+            PdfArray chain = (PdfArray) filterObject;
+            if (chain.size() > 1) return false;
+            filterObject = chain.isEmpty() ? null : chain.get(0);
+        }
+        if (filterObject != null && !filterObject.isName()) return false;
+        PdfName filter = (PdfName) filterObject;
+
+        int width = image.getAsNumber(PdfName.Width).intValue();
+        int height = image.getAsNumber(PdfName.Height).intValue();
+        byte[] encoded = image.getBytes(false);
+
+        Bitmap bitmap;
+        if (PdfName.DCTDecode.equals(filter)) {
+            bitmap = decodeJpeg(encoded, maxEdge);
+        } else if (filter == null || PdfName.FlateDecode.equals(filter) || PdfName.LZWDecode.equals(filter)) {
+            bitmap = fromRaw(image.getBytes(true), width, height, components);
+        } else {
+            return false;
+        }
+        if (bitmap == null) return false;
+
+        try {
+            bitmap = scaleToFit(bitmap, maxEdge);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length / 2);
+            bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, out);
+            if (out.size() >= encoded.length) return false;
+
+            image.setData(out.toByteArray());
+            image.put(PdfName.Filter, PdfName.DCTDecode);
+            image.remove(PdfName.DecodeParms);
+            image.put(PdfName.Width, new PdfNumber(bitmap.getWidth()));
+            image.put(PdfName.Height, new PdfNumber(bitmap.getHeight()));
+            image.put(PdfName.BitsPerComponent, new PdfNumber(8));
+            // Android always writes 3-component JPEGs; an RGB color space (ICC profile included) stays
+            if (components == 1) {
+                image.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+            }
+            // Flate over JPEG data only costs time
+            image.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
+            return true;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    // Decodes at the smallest power-of-two subsample that still covers maxEdge
+    private static Bitmap decodeJpeg(byte[] jpeg, int maxEdge) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        int sample = 1;
+        int longEdge = Math.max(options.outWidth, options.outHeight);
+        while (longEdge / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sample;
+        return BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+    }
+
+    // Packs 8-bit gray or RGB samples into a bitmap one row at a time
+    private static Bitmap fromRaw(byte[] samples, int width, int height, int components) {
+        if (width <= 0 || height <= 0 || samples.length < (long) width * height * components) return null;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        int[] row = new int[width];
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (components == 1) {
+                    int g = samples[i++] & 0xff;
+                    row[x] = 0xff000000 | (g << 16) | (g << 8) | g;
+                } else {
+                    row[x] = 0xff000000 | ((samples[i] & 0xff) << 16) | ((samples[i + 1] & 0xff) << 8) | (samples[i + 2] & 0xff);
+                    i += 3;
+                }
+            }
+            bitmap.setPixels(row, 0, width, 0, y, width, 1);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap scaleToFit(Bitmap bitmap, int maxEdge) {
+        int longEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longEdge <= maxEdge) return bitmap;
+        float scale = (float) maxEdge / longEdge;
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+            Math.max(1, Math.round(bitmap.getWidth() * scale)),
+            Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        if (scaled != bitmap) bitmap.recycle();
+        return scaled;
+    }
+
+    // Color components of an image color space; 0 for spaces this pass does not handle
+    private static int components(PdfObject colorSpace) {
+        if (colorSpace == null) return 0;
+        if (colorSpace.isName()) {
+            if (PdfName.DeviceRGB.equals(colorSpace)) return 3;
+            if (PdfName.DeviceGray.equals(colorSpace)) return 1;
+            return 0;
+        }
+        if (colorSpace.isArray()) {
+            PdfArray array = (PdfArray) colorSpace;
+            if (array.size() == 2 && PdfName.ICCBased.equals(array.getAsName(0))) {
+                PdfStream profile = array.getAsStream(1);
+                PdfNumber n = profile != null ? profile.getAsNumber(PdfName.N) : null;
+                return n != null ? n.intValue() : 0;
+            }
+        }
+        return 0;
+    }
+}
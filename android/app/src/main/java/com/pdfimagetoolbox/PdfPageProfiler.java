@@ -0,0 +1,189 @@
+// android/app/src/main/java/com/pdfimagetoolbox/PdfPageProfiler.java
+package com.pdfimagetoolbox;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.parser.util.InlineImageParsingUtils;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfCanvasParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies a page from its resources and one pass over its content stream
+ * operators (form XObjects included), without decoding fonts or images:
+ *
+ * - SCANNED: one image covers most of the page and there is next to no
+ *   vector drawing. Text is allowed - it is usually an invisible OCR layer.
+ * - IMAGES: drawn images cover a good part of the page.
+ * - VECTOR: everything else - text and paths, maybe a logo.
+ *
+ * Image placement comes from tracking the CTM through q / Q / cm, so the
+ * profile also knows how large (in points) each image is drawn.
+ */
+final class PdfPageProfiler {
+    private static final int MAX_FORM_DEPTH = 8;
+    // Largest single image as a share of the page area for a scan
+    private static final float SCAN_COVERAGE = 0.85f;
+    // Stroke / fill operators a scan may still have (crop marks, a border)
+    private static final int SCAN_MAX_PATH_OPS = 16;
+    // Share of the page area covered by images for an image page
+    private static final float IMAGE_PAGE_COVERAGE = 0.25f;
+
+    enum Kind {
+        VECTOR("vector"),
+        IMAGES("image"),
+        SCANNED("scanned");
+
+        final String key;
+
+        Kind(String key) {
+            this.key = key;
+        }
+    }
+
+    static final class PageProfile {
+        final int pageNumber;
+        Kind kind = Kind.VECTOR;
+        int textOps;
+        int pathOps;
+        int imageDraws;
+        // Sum of drawn image areas over the page area (overlaps count twice)
+        float imageCoverage;
+        float largestImageCoverage;
+        // Image XObjects drawn on the page -> longest drawn edge in points
+        final Map<PdfStream, Float> imageEdgesPt = new IdentityHashMap<>();
+
+        PageProfile(int pageNumber) {
+            this.pageNumber = pageNumber;
+        }
+    }
+
+    PageProfile profile(PdfPage page, int pageNumber) throws IOException {
+        PageProfile profile = new PageProfile(pageNumber);
+        Rectangle box = page.getCropBox();
+        float pageArea = Math.max(1f, box.getWidth() * box.getHeight());
+        scan(page.getContentBytes(), page.getResources(), new float[] {1, 0, 0, 1, 0, 0}, pageArea, profile, 0);
+
+        if (profile.largestImageCoverage >= SCAN_COVERAGE && profile.pathOps <= SCAN_MAX_PATH_OPS) {
+            profile.kind = Kind.SCANNED;
+        } else if (profile.imageCoverage >= IMAGE_PAGE_COVERAGE) {
+            profile.kind = Kind.IMAGES;
+        }
+        return profile;
+    }
+
+    private void scan(byte[] content, PdfResources resources, float[] baseCtm, float pageArea,
+                      PageProfile profile, int depth) throws IOException {
+        if (content == null || content.length == 0) return;
+        PdfCanvasParser parser = new PdfCanvasParser(new PdfTokenizer(new RandomAccessFileOrArray(
+            new RandomAccessSourceFactory().createSource(content))), resources);
+        List<float[]> stack = new ArrayList<>();
+        float[] ctm = baseCtm.clone();
+        List<PdfObject> operands = new ArrayList<>();
+
+        while (!parser.parse(operands).isEmpty()) {
+            String op = operands.get(operands.size() - 1).toString();
+            switch (op) {
+                case "q":
+                    stack.add(ctm.clone());
+                    break;
+                case "Q":
+                    if (!stack.isEmpty()) ctm = stack.remove(stack.size() - 1);
+                    break;
+                case "cm":
+                    if (operands.size() == 7) ctm = concat(numbers(operands), ctm);
+                    break;
+                case "Tj":
+                case "TJ":
+                case "'":
+                case "\"":
+                    profile.textOps++;
+                    break;
+                case "S": case "s": case "f": case "F": case "f*":
+                case "B": case "B*": case "b": case "b*":
+                    profile.pathOps++;
+                    break;
+                case "BI":
+                    PdfDictionary colorSpaces = resources != null ? resources.getResource(PdfName.ColorSpace) : null;
+                    InlineImageParsingUtils.parse(parser, colorSpaces);
+                    addImageDraw(null, ctm, pageArea, profile);
+                    break;
+                case "Do":
+                    if (resources != null && operands.size() == 2 && operands.get(0).isName()) {
+                        doXObject((PdfName) operands.get(0), resources, ctm, pageArea, profile, depth);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void doXObject(PdfName name, PdfResources resources, float[] ctm, float pageArea,
+                           PageProfile profile, int depth) throws IOException {
+        PdfObject obj = resources.getResourceObject(PdfName.XObject, name);
+        if (obj == null || !obj.isStream()) return;
+        PdfStream xobject = (PdfStream) obj;
+        PdfName subtype = xobject.getAsName(PdfName.Subtype);
+        if (PdfName.Image.equals(subtype)) {
+            addImageDraw(xobject, ctm, pageArea, profile);
+        } else if (PdfName.Form.equals(subtype) && depth < MAX_FORM_DEPTH) {
+            float[] formCtm = ctm;
+            PdfArray matrix = xobject.getAsArray(PdfName.Matrix);
+            if (matrix != null && matrix.size() == 6) {
+                formCtm = concat(matrix.toFloatArray(), ctm);
+            }
+            PdfDictionary formResources = xobject.getAsDictionary(PdfName.Resources);
+            scan(xobject.getBytes(), formResources != null ? new PdfResources(formResources) : resources,
+                formCtm, pageArea, profile, depth + 1);
+        }
+    }
+
+    // The image's unit square is mapped through the CTM: its area is |det|, its edges the column lengths
+    private static void addImageDraw(PdfStream image, float[] ctm, float pageArea, PageProfile profile) {
+        float coverage = Math.abs(ctm[0] * ctm[3] - ctm[1] * ctm[2]) / pageArea;
+        profile.imageDraws++;
+        profile.imageCoverage += coverage;
+        profile.largestImageCoverage = Math.max(profile.largestImageCoverage, coverage);
+        if (image != null) {
+            float edge = (float) Math.max(Math.hypot(ctm[0], ctm[1]), Math.hypot(ctm[2], ctm[3]));
+            Float known = profile.imageEdgesPt.get(image);
+            if (known == null || edge > known) profile.imageEdgesPt.put(image, edge);
+        }
+    }
+
+    // m x ctm, both as [a b c d e f]
+    private static float[] concat(float[] m, float[] ctm) {
+        return new float[] {
+            m[0] * ctm[0] + m[1] * ctm[2],
+            m[0] * ctm[1] + m[1] * ctm[3],
+            m[2] * ctm[0] + m[3] * ctm[2],
+            m[2] * ctm[1] + m[3] * ctm[3],
+            m[4] * ctm[0] + m[5] * ctm[2] + ctm[4],
+            m[4] * ctm[1] + m[5] * ctm[3] + ctm[5],
+        };
+    }
+
+    private static float[] numbers(List<PdfObject> operands) {
+        float[] values = new float[6];
+        for (int i = 0; i < 6; i++) {
+            PdfObject operand = operands.get(i);
+            values[i] = operand.isNumber() ? ((PdfNumber) operand).floatValue() : 0f;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,314 @@
+// android/app/src/main/java/com/pdfimagetoolbox/PdfRasterizer.java
+package com.pdfimagetoolbox;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.pdf.PdfRenderer;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders every page with PdfRenderer (pdfium, tolerant of files iText
+ * rejects) and writes it back as one full-page JPEG. Pages keep their size in
+ * points; dpi only sets the pixel density of the image.
+ *
+ * Render + JPEG encode run on a small pool. A PdfRenderer allows one open page
+ * at a time, so each worker borrows one of several renderers, each on its own
+ * file descriptor. The calling thread is the only writer and appends pages in
+ * order; workers run at most a few pages ahead of it, which bounds the JPEGs
+ * held in memory. Before API 26 pdfium is not serialised across renderers,
+ * so there page rendering takes one shared lock and only the JPEG encoding
+ * of one page overlaps the rendering of the next.
+ *
+ * Output is streamed: each page's JPEG goes straight from a reusable buffer
+ * into its image XObject, and the page is flushed to the PdfWriter as soon as
+ * it is written. Memory stays bounded by the pages in flight, however long
+ * the document.
+ *
+ * Each worker also owns one render surface, reused from page to page rather
+ * than allocating (and collecting) a full-page bitmap every time.
+ */
+final class PdfRasterizer {
+    private static final String TAG = "PdfRasterizer";
+    private static final int MAX_WORKERS = 4;
+    // Pages each worker may finish ahead of the writer
+    private static final int PAGES_AHEAD_PER_WORKER = 2;
+    // Guards every open/render/close of a page on releases where pdfium is not thread-safe
+    private static final Object PDFIUM_LOCK = new Object();
+
+    /** Growable JPEG output that is reset, not reallocated, between pages. */
+    private static final class JpegBuffer extends ByteArrayOutputStream {
+        JpegBuffer() {
+            super(256 * 1024);
+        }
+
+        ByteArrayInputStream contents() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * A worker's renderer and its bitmap. The bitmap only grows - to the
+     * biggest page seen so far - and is reconfigure()d to each page's exact
+     * size, so rendering and JPEG encoding cover just that region.
+     */
+    private static final class RenderSurface {
+        final PdfRenderer renderer;
+        private final Rect clip = new Rect();
+        private final Matrix transform = new Matrix();
+        private Bitmap bitmap;
+
+        RenderSurface(PdfRenderer renderer) {
+            this.renderer = renderer;
+        }
+
+        Bitmap render(PdfRenderer.Page page, int width, int height) {
+            if (bitmap == null || bitmap.getAllocationByteCount() < 4L * width * height) {
+                if (bitmap != null) bitmap.recycle();
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            } else {
+                bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+            }
+            // Transparent areas would turn black in the JPEG
+            bitmap.eraseColor(Color.WHITE);
+            clip.set(0, 0, width, height);
+            transform.setScale((float) width / page.getWidth(), (float) height / page.getHeight());
+            page.render(bitmap, clip, transform, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+            return bitmap;
+        }
+
+        void recycle() {
+            if (bitmap != null) {
+                bitmap.recycle();
+                bitmap = null;
+            }
+        }
+    }
+
+    private static final class RenderedPage {
+        final float widthPt;
+        final float heightPt;
+        final int widthPx;
+        final int heightPx;
+        final JpegBuffer jpeg;
+
+        RenderedPage(float widthPt, float heightPt, int widthPx, int heightPx, JpegBuffer jpeg) {
+            this.widthPt = widthPt;
+            this.heightPt = heightPt;
+            this.widthPx = widthPx;
+            this.heightPx = heightPx;
+            this.jpeg = jpeg;
+        }
+    }
+
+    private final Context context;
+    private final int dpi;
+    private final int jpegQuality;
+
+    PdfRasterizer(Context context, int dpi, int jpegQuality) {
+        this.context = context;
+        this.dpi = dpi;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /** @return number of pages written */
+    int rasterize(File input, File output) throws IOException {
+        final float scale = dpi / 72f;
+        List<AutoCloseable> open = new ArrayList<>();
+        List<RenderSurface> allSurfaces = new ArrayList<>();
+        ExecutorService pool = null;
+        try {
+            PdfRenderer first = openRenderer(input, open);
+            int pageCount = first.getPageCount();
+            if (pageCount == 0) throw new IOException("PDF has no pages");
+            long bytesPerPage;
+            try (PdfRenderer.Page page = first.openPage(0)) {
+                bytesPerPage = 4L * (long) (page.getWidth() * scale) * (long) (page.getHeight() * scale);
+            }
+
+            int workers = workerCount(pageCount, bytesPerPage);
+            final BlockingQueue<RenderSurface> surfaces = new ArrayBlockingQueue<>(workers);
+            allSurfaces.add(new RenderSurface(first));
+            for (int i = 1; i < workers; i++) {
+                allSurfaces.add(new RenderSurface(openRenderer(input, open)));
+            }
+            surfaces.addAll(allSurfaces);
+            Log.d(TAG, "Rendering " + pageCount + " pages at " + dpi + " DPI, JPEG " + jpegQuality
+                + " on " + workers + " worker(s)");
+
+            pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "PdfRasterizer");
+                t.setDaemon(true);
+                return t;
+            });
+            ArrayDeque<Future<RenderedPage>> pending = new ArrayDeque<>();
+            int window = workers * PAGES_AHEAD_PER_WORKER;
+            // One buffer per page in flight; the writer hands each back once its page is flushed
+            final BlockingQueue<JpegBuffer> buffers = new ArrayBlockingQueue<>(window);
+            for (int i = 0; i < window; i++) {
+                buffers.add(new JpegBuffer());
+            }
+            int submitted = 0;
+
+            try (PdfDocument outPdf = new PdfDocument(new PdfWriter(output.getAbsolutePath()))) {
+                for (int i = 0; i < pageCount; i++) {
+                    while (submitted < pageCount && submitted < i + window) {
+                        final int index = submitted++;
+                        pending.add(pool.submit(() -> {
+                            JpegBuffer buffer = buffers.take();
+                            RenderSurface surface = surfaces.take();
+                            try {
+                                return renderPage(surface, index, scale, buffer);
+                            } finally {
+                                surfaces.add(surface);
+                            }
+                        }));
+                    }
+                    RenderedPage rendered = await(pending.poll());
+                    appendPage(outPdf, rendered);
+                    buffers.add(rendered.jpeg);
+                }
+            }
+            return pageCount;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+                try {
+                    // Renderers must not be closed under a worker that is still rendering
+                    pool.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (RenderSurface surface : allSurfaces) {
+                surface.recycle();
+            }
+            for (int i = open.size() - 1; i >= 0; i--) {
+                try {
+                    open.get(i).close();
+                } catch (Exception ignored) {
+                    // Nothing left to salvage
+                }
+            }
+        }
+    }
+
+    private RenderedPage renderPage(RenderSurface surface, int index, float scale, JpegBuffer jpeg) {
+        Bitmap bitmap;
+        float widthPt;
+        float heightPt;
+        // A surface is only ever used by one worker, so locking it alone costs nothing
+        Object lock = Build.VERSION.SDK_INT < Build.VERSION_CODES.O ? PDFIUM_LOCK : surface;
+        synchronized (lock) {
+            try (PdfRenderer.Page page = surface.renderer.openPage(index)) {
+                widthPt = page.getWidth();
+                heightPt = page.getHeight();
+                bitmap = surface.render(page,
+                    Math.max(1, (int) (widthPt * scale)),
+                    Math.max(1, (int) (heightPt * scale)));
+            }
+        }
+        jpeg.reset();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, jpeg);
+        return new RenderedPage(widthPt, heightPt, bitmap.getWidth(), bitmap.getHeight(), jpeg);
+    }
+
+    /**
+     * Writes the page as a bare image XObject plus a one-line content stream
+     * and flushes both, so neither the JPEG nor the page stays in memory.
+     */
+    private static void appendPage(PdfDocument outPdf, RenderedPage rendered) {
+        PdfStream stream = new PdfStream(outPdf, rendered.jpeg.contents(), CompressionConstants.NO_COMPRESSION);
+        stream.put(PdfName.Type, PdfName.XObject);
+        stream.put(PdfName.Subtype, PdfName.Image);
+        stream.put(PdfName.Width, new PdfNumber(rendered.widthPx));
+        stream.put(PdfName.Height, new PdfNumber(rendered.heightPx));
+        stream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+        stream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        stream.put(PdfName.Filter, PdfName.DCTDecode);
+        PdfImageXObject image = new PdfImageXObject(stream);
+
+        PageSize pageSize = new PageSize(rendered.widthPt, rendered.heightPt);
+        PdfPage page = outPdf.addNewPage(pageSize);
+        PdfCanvas canvas = new PdfCanvas(page);
+        canvas.addXObjectFittedIntoRectangle(image, pageSize);
+        canvas.release();
+        // The JPEG is read from the buffer here - it may be reused after this returns
+        image.flush();
+        page.flush();
+    }
+
+    private static PdfRenderer openRenderer(File input, List<AutoCloseable> open) throws IOException {
+        ParcelFileDescriptor fd = ParcelFileDescriptor.open(input, ParcelFileDescriptor.MODE_READ_ONLY);
+        open.add(fd);
+        PdfRenderer renderer = new PdfRenderer(fd);
+        open.add(renderer);
+        return renderer;
+    }
+
+    /**
+     * One worker per core (at most MAX_WORKERS), fewer when the device's free
+     * memory cannot hold a page bitmap plus its JPEG per worker with half to
+     * spare. Bitmap pixels live in native memory since API 26, so Java heap
+     * headroom says nothing about what the render surfaces cost.
+     */
+    private int workerCount(int pageCount, long bytesPerPage) {
+        long byMemory = availableMemory() / 2 / Math.max(1, bytesPerPage * 2);
+        int byCores = Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS);
+        return (int) Math.max(1, Math.min(Math.min(byCores, byMemory), pageCount));
+    }
+
+    // What the system can still hand out before it starts killing background apps
+    private long availableMemory() {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) return 0;
+        ActivityManager.MemoryInfo info = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(info);
+        return Math.max(0, info.availMem - info.threshold);
+    }
+
+    private static RenderedPage await(Future<RenderedPage> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rasterisation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException("Page rendering failed: " + cause, cause);
+        }
+    }
+}
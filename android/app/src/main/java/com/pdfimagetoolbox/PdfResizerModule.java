@@ -4,26 +4,14 @@ import android.graphics.Bitmap;
 import android.graphics.pdf.PdfRenderer;
 import android.os.ParcelFileDescriptor;
 import android.net.Uri;
-import android.util.Log;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.WritableArray;
-import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
 
-// iText for creating the output PDF (better compression handling than valid Android PdfDocument)
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.io.image.ImageData;
-import com.itextpdf.io.image.ImageDataFactory;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Image;
-import com.itextpdf.kernel.geom.PageSize;
-
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -71,109 +59,11 @@ public class PdfResizerModule extends ReactContextBaseJavaModule {
         }
     }
 
-    // New method to match ResizePdf.jsx expectations and fix the error
+    // Kept for older JS callers - same engine as PdfCompressor.compressPdf, which
+    // no longer rasterises text-only documents
     @ReactMethod
     public void compressPdf(String inputPath, String quality, String outputPath, Promise promise) {
-        try {
-            Log.d(TAG, "Starting Safe PDF Compression (Native Read -> iText Write)");
-            File inputFile = new File(inputPath);
-            if (!inputFile.exists()) {
-                 promise.reject("FILE_NOT_FOUND", "Input file not found");
-                 return;
-            }
-
-            // Quality Settings
-            int compressQuality = 60; // Default Medium
-            float scale = 1.5f;       // Default Medium
-            
-            if (quality.equalsIgnoreCase("low")) {
-                compressQuality = 40;
-                scale = 1.0f; // 72 DPI
-            } else if (quality.equalsIgnoreCase("medium")) {
-                compressQuality = 60;
-                scale = 1.5f; // ~108 DPI
-            } else if (quality.equalsIgnoreCase("high")) {
-                compressQuality = 80;
-                scale = 2.0f; // 144 DPI
-            }
-            
-            // Use Native PdfRenderer (Robust against parsing errors)
-            ParcelFileDescriptor fileDescriptor = ParcelFileDescriptor.open(inputFile, ParcelFileDescriptor.MODE_READ_ONLY);
-            PdfRenderer pdfRenderer = new PdfRenderer(fileDescriptor);
-            
-            // Setup Output PDF
-            PdfWriter writer = new PdfWriter(outputPath);
-            PdfDocument outPdf = new PdfDocument(writer);
-            Document doc = new Document(outPdf);
-            doc.setMargins(0, 0, 0, 0);
-
-            int pageCount = pdfRenderer.getPageCount();
-            Log.d(TAG, "Processing " + pageCount + " pages...");
-
-            for (int i = 0; i < pageCount; i++) {
-                PdfRenderer.Page page = pdfRenderer.openPage(i);
-                
-                int width = (int) (page.getWidth() * scale);
-                int height = (int) (page.getHeight() * scale);
-                
-                // Render to Bitmap
-                Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-                // Fill white background (PDF transparency is black otherwise)
-                android.graphics.Canvas canvas = new android.graphics.Canvas(bitmap);
-                canvas.drawColor(android.graphics.Color.WHITE);
-                
-                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
-                page.close();
-
-                // Compress to JPEG
-                ByteArrayOutputStream stream = new ByteArrayOutputStream();
-                bitmap.compress(Bitmap.CompressFormat.JPEG, compressQuality, stream);
-                byte[] imageBytes = stream.toByteArray();
-                
-                // Add to new PDF using iText
-                ImageData imageData = ImageDataFactory.create(imageBytes);
-                Image image = new Image(imageData);
-                
-                // Set page size to match the image (or original PDF points)
-                // Using 72 DPI for PDF points
-                float pdfWidth = width * 72f / (scale * 72f); // = page.getWidth()
-                // Actually simple logic: iText page size from image
-                // But we want to preserve physical size approx? 
-                // Let's just fit image to page.
-                
-                PageSize pageSize = new PageSize(image.getImageWidth(), image.getImageHeight());
-                // Or use original page dimensions? Native Page gives size in points (1/72 inch).
-                // Let's rely on the image size being the source of truth for the new PDF.
-                
-                outPdf.addNewPage(pageSize);
-                image.setFixedPosition(i + 1, 0, 0);
-                doc.add(image);
-                
-                bitmap.recycle();
-                stream.close();
-            }
-
-            doc.close();
-            pdfRenderer.close();
-            fileDescriptor.close();
-            
-            long originalSize = inputFile.length();
-            long compressedSize = new File(outputPath).length();
-            double ratio = (1 - (double) compressedSize / originalSize) * 100;
-
-            WritableMap result = Arguments.createMap();
-            result.putString("filePath", outputPath);
-            result.putDouble("originalSize", (double) originalSize);
-            result.putDouble("size", (double) compressedSize);
-            result.putDouble("compressionRatio", ratio);
-            
-            Log.d(TAG, "Compression Complete: " + outputPath);
-            promise.resolve(result);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Compression Error", e);
-            promise.reject("COMPRESSION_ERROR", e.getMessage());
-        }
+        PdfCompressorModule.compressAsync(getReactApplicationContext(), inputPath, quality, outputPath, promise);
     }
 
     private List<String> extractAndCompressPages(String inputPath, int quality) throws IOException {
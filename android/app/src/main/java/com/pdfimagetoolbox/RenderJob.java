@@ -0,0 +1,100 @@
+// android/app/src/main/java/com/pdfimagetoolbox/RenderJob.java
+package com.pdfimagetoolbox;
+
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * State of one render running on the VideoJobEngine: cancellation flag,
+ * throttled progress reporting and the files to delete if it does not finish.
+ *
+ * The encode loop polls throwIfCancelled(), so cancelJob() stops the codec at
+ * the next frame and the normal finally blocks release it.
+ */
+public class RenderJob {
+    private static final String TAG = "RenderJob";
+
+    public interface Listener {
+        void onProgress(RenderJob job, int completedFrames, int totalFrames);
+    }
+
+    private final String id;
+    private final Listener listener;
+    private final List<File> tempFiles = new ArrayList<>();
+    private final RenderMetrics metrics;
+    private volatile boolean cancelled = false;
+    private int lastReportedPercent = -1;
+    private int completedFrames = 0;
+
+    RenderJob(String id, Listener listener) {
+        this.id = id;
+        this.listener = listener;
+        this.metrics = new RenderMetrics(id);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Job " + id + " was cancelled");
+        }
+    }
+
+    /** Reports frame progress; only whole-percent changes reach the listener. */
+    public synchronized void reportProgress(int completedFrames, int totalFrames) {
+        if (listener == null || totalFrames <= 0) return;
+        int percent = (int) (completedFrames * 100L / totalFrames);
+        if (percent == lastReportedPercent) return;
+        lastReportedPercent = percent;
+        listener.onProgress(this, completedFrames, totalFrames);
+    }
+
+    /** Counts frames done by one of several encoders working on this job and reports the sum. */
+    public synchronized void addProgress(int frames, int totalFrames) {
+        completedFrames += frames;
+        reportProgress(completedFrames, totalFrames);
+    }
+
+    /** Starts frame counting over, when the frames are about to be encoded again. */
+    public synchronized void resetProgress() {
+        completedFrames = 0;
+    }
+
+    /** Registers a file that must be deleted if the job fails or is cancelled. */
+    public synchronized void trackTempFile(File file) {
+        tempFiles.add(file);
+    }
+
+    /** The file survived (e.g. the finished output) - stop tracking it. */
+    public synchronized void untrackTempFile(File file) {
+        tempFiles.remove(file);
+    }
+
+    synchronized void deleteTempFiles() {
+        for (File file : tempFiles) {
+            if (file.exists()) {
+                boolean deleted = file.delete();
+                Log.d(TAG, "🗑️  Job " + id + " cleanup " + file.getName() + ": " + deleted);
+            }
+        }
+        tempFiles.clear();
+    }
+}
@@ -0,0 +1,157 @@
+// android/app/src/main/java/com/pdfimagetoolbox/RenderMetrics.java
+package com.pdfimagetoolbox;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-job timing and throughput counters. Stage timers are cumulative and
+ * thread-safe because decode/convert run on the pipeline workers while the
+ * codec loop records input waits and drains.
+ *
+ * Usage: long t = metrics.begin(); ...work...; metrics.end(Stage.DECODE, t);
+ */
+public class RenderMetrics {
+
+    public enum Stage {
+        ANALYZE("analyze"),           // content complexity probe
+        DECODE("decode"),             // loadAndFitBitmap
+        CONVERT("convert"),           // ARGB -> YUV
+        TRANSITION("transition"),     // YUV-domain transitions / Ken Burns
+        INPUT_WAIT("inputWait"),      // dequeueInputBuffer
+        DRAIN("drain"),               // dequeueOutputBuffer + muxer writes
+        AUDIO_PREPARE("audioPrepare"), // probe / MP3 -> AAC transcode
+        AUDIO_MUX("audioMux"),        // interleaving audio samples
+        CONCAT("concat"),             // joining parallel-encoded segments
+        FAST_START("fastStart");      // moov relocation rewrite
+
+        final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    private final String jobId;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLong liveBitmapBytes = new AtomicLong();
+    private final AtomicLong peakBitmapBytes = new AtomicLong();
+    private volatile long startedAtMs;
+    private volatile long startNanos;
+    private volatile long wallNanos;
+    private volatile int framesEncoded;
+    private volatile long bytesWritten;
+    private volatile int width;
+    private volatile int height;
+    private volatile String status = "queued";
+
+    RenderMetrics(String jobId) {
+        this.jobId = jobId;
+    }
+
+    /** Called when the job leaves the queue; wall time is measured from here. */
+    void markStarted() {
+        startedAtMs = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+        status = "running";
+    }
+
+    void finish(String status, long bytesWritten) {
+        this.status = status;
+        this.bytesWritten = bytesWritten;
+        this.wallNanos = startNanos > 0 ? System.nanoTime() - startNanos : 0;
+    }
+
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    public void end(Stage stage, long beginNanos) {
+        stageNanos.addAndGet(stage.ordinal(), System.nanoTime() - beginNanos);
+    }
+
+    public void bitmapAllocated(long bytes) {
+        long live = liveBitmapBytes.addAndGet(bytes);
+        long peak;
+        do {
+            peak = peakBitmapBytes.get();
+        } while (live > peak && !peakBitmapBytes.compareAndSet(peak, live));
+    }
+
+    public void bitmapReleased(long bytes) {
+        liveBitmapBytes.addAndGet(-bytes);
+    }
+
+    public void setFramesEncoded(int framesEncoded) {
+        this.framesEncoded = framesEncoded;
+    }
+
+    public void setDimensions(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getStartedAtMs() {
+        return startedAtMs;
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public int getFramesEncoded() {
+        return framesEncoded;
+    }
+
+    public double getFramesPerSecond() {
+        return wallNanos > 0 ? framesEncoded * 1e9 / wallNanos : 0;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getPeakBitmapBytes() {
+        return peakBitmapBytes.get();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** One JSON object on a single line, for the metrics log. */
+    public String toJsonLine() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"jobId\":\"").append(jobId).append('"')
+            .append(",\"status\":\"").append(status).append('"')
+            .append(",\"startedAtMs\":").append(startedAtMs)
+            .append(",\"width\":").append(width)
+            .append(",\"height\":").append(height)
+            .append(",\"wallNs\":").append(wallNanos);
+        for (Stage stage : Stage.values()) {
+            sb.append(",\"").append(stage.key).append("Ns\":").append(getStageNanos(stage));
+        }
+        sb.append(",\"framesEncoded\":").append(framesEncoded)
+            .append(",\"fps\":").append(String.format(java.util.Locale.US, "%.2f", getFramesPerSecond()))
+            .append(",\"bytesWritten\":").append(bytesWritten)
+            .append(",\"peakBitmapBytes\":").append(getPeakBitmapBytes())
+            .append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,48 @@
+// android/app/src/main/java/com/pdfimagetoolbox/RenderSpec.java
+package com.pdfimagetoolbox;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything needed to render one video: the images (already cleaned file
+ * paths), optional background audio, total duration and encoding options.
+ * Optional settings are plain fields with defaults, set after construction.
+ */
+public class RenderSpec {
+    final List<String> imagePaths;
+    final String audioPath;       // null for a silent video
+    final int durationSeconds;
+
+    boolean stillImageMode = false;
+    String videoMime = EncoderCapabilities.MIME_AVC;  // requested codec; falls back to AVC if unsupported
+    TransitionRenderer.Type transition = TransitionRenderer.Type.NONE;
+    int transitionMs = 600;
+    boolean kenBurns = false;
+    long targetSizeBytes = 0;     // 0 = no size cap
+    boolean preview = false;      // small, low frame rate draft of the same slideshow
+
+    RenderSpec(List<String> imagePaths, String audioPath, int durationSeconds) {
+        this.imagePaths = Collections.unmodifiableList(imagePaths);
+        this.audioPath = audioPath;
+        this.durationSeconds = durationSeconds;
+    }
+
+    boolean hasAudio() {
+        return audioPath != null;
+    }
+
+    boolean isSingleImage() {
+        return imagePaths.size() == 1;
+    }
+
+    /** Transitions and Ken Burns animate every frame, so they need a constant-rate timeline. */
+    boolean hasMotion() {
+        return kenBurns || (transition != TransitionRenderer.Type.NONE && !isSingleImage());
+    }
+
+    /** Still image mode only applies when nothing moves. */
+    boolean isStillImage() {
+        return stillImageMode && !hasMotion();
+    }
+}
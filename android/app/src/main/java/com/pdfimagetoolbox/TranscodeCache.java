@@ -0,0 +1,113 @@
+// android/app/src/main/java/com/pdfimagetoolbox/TranscodeCache.java
+package com.pdfimagetoolbox;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * On-disk cache of transcoded audio, keyed by the source file's content hash
+ * plus the target encoding parameters. Re-rendering a slideshow with the same
+ * song reuses the AAC file instead of transcoding again.
+ *
+ * Entries are plain files; recency is tracked through lastModified (touched on
+ * every hit) and the least recently used entries are evicted once the directory
+ * grows past maxBytes.
+ */
+public class TranscodeCache {
+    private static final String TAG = "TranscodeCache";
+    private static final String SUFFIX = ".m4a";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File dir;
+    private final long maxBytes;
+
+    public TranscodeCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Cache key: SHA-256 of the source bytes, then of the target parameters. */
+    public static String keyFor(File source, String targetParams) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update(targetParams.getBytes("UTF-8"));
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b & 0xff));
+        }
+        return key.toString();
+    }
+
+    /** Returns the cached file for key, or null on a miss. Marks a hit as recently used. */
+    public synchronized File get(String key) {
+        File entry = new File(dir, key + SUFFIX);
+        if (!entry.isFile() || entry.length() == 0) return null;
+        entry.setLastModified(System.currentTimeMillis());
+        return entry;
+    }
+
+    /** Scratch file to transcode into; publish it with commit(). */
+    public File newTempFile(String key) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create cache directory " + dir);
+        }
+        return new File(dir, key + "_" + System.nanoTime() + TEMP_SUFFIX);
+    }
+
+    /** Atomically publishes a finished temp file under key and trims the cache. */
+    public synchronized File commit(File tempFile, String key) throws IOException {
+        File entry = new File(dir, key + SUFFIX);
+        if (entry.exists() && !entry.delete()) {
+            tempFile.delete();
+            throw new IOException("Could not replace cache entry " + entry);
+        }
+        if (!tempFile.renameTo(entry)) {
+            tempFile.delete();
+            throw new IOException("Could not publish cache entry " + entry);
+        }
+        evict(entry);
+        return entry;
+    }
+
+    public synchronized long sizeBytes() {
+        long total = 0;
+        File[] files = dir.listFiles();
+        if (files == null) return 0;
+        for (File f : files) total += f.length();
+        return total;
+    }
+
+    // Drops least recently used entries (never the one just written) until under budget
+    private void evict(File keep) {
+        File[] entries = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (entries == null) return;
+
+        long total = 0;
+        for (File f : entries) total += f.length();
+        if (total <= maxBytes) return;
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File f : entries) {
+            if (total <= maxBytes) break;
+            if (f.equals(keep)) continue;
+            long size = f.length();
+            if (f.delete()) {
+                total -= size;
+                Log.d(TAG, "🗑️  Evicted " + f.getName() + " (" + size + " bytes)");
+            }
+        }
+    }
+}
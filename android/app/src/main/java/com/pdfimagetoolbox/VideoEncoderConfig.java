@@ -0,0 +1,78 @@
+// android/app/src/main/java/com/pdfimagetoolbox/VideoEncoderConfig.java
+package com.pdfimagetoolbox;
+
+import android.media.MediaCodec;
+import android.media.MediaFormat;
+
+import java.io.IOException;
+
+/**
+ * Resolved encoder settings for one render: which codec, output size, rate
+ * control. Built from the probed EncoderCapabilities so every value is one
+ * the chosen encoder accepts.
+ */
+public final class VideoEncoderConfig {
+    final String mime;
+    final String codecName;   // null = let the platform pick by MIME
+    final int width;
+    final int height;
+    final int bitRate;
+    final int bitrateMode;    // -1 = encoder default
+    final int frameRate;          // timeline rate presentation times are planned on
+    final int encoderFrameRate;   // rate the encoder budgets for; lower in still image mode
+    final int iFrameInterval;
+    final int colorFormat;
+
+    VideoEncoderConfig(String mime, String codecName, int width, int height, int bitRate, int bitrateMode,
+                       int frameRate, int encoderFrameRate, int iFrameInterval, int colorFormat) {
+        this.mime = mime;
+        this.codecName = codecName;
+        this.width = width;
+        this.height = height;
+        this.bitRate = bitRate;
+        this.bitrateMode = bitrateMode;
+        this.frameRate = frameRate;
+        this.encoderFrameRate = encoderFrameRate;
+        this.iFrameInterval = iFrameInterval;
+        this.colorFormat = colorFormat;
+    }
+
+    public MediaFormat toMediaFormat() {
+        MediaFormat format = MediaFormat.createVideoFormat(mime, width, height);
+        format.setInteger(MediaFormat.KEY_COLOR_FORMAT, colorFormat);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, bitRate);
+        if (bitrateMode >= 0) {
+            format.setInteger(MediaFormat.KEY_BITRATE_MODE, bitrateMode);
+        }
+        format.setInteger(MediaFormat.KEY_FRAME_RATE, encoderFrameRate);
+        format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, iFrameInterval);
+        // Ensure encoder has enough input buffer size for our YUV frames
+        format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, YuvPlanes.packedSize(width, height));
+        return format;
+    }
+
+    public MediaCodec createEncoder() throws IOException {
+        return codecName != null
+            ? MediaCodec.createByCodecName(codecName)
+            : MediaCodec.createEncoderByType(mime);
+    }
+
+    /** True when an encoder configured for other can encode this config unchanged. */
+    public boolean sameEncoding(VideoEncoderConfig other) {
+        return other != null
+            && mime.equals(other.mime)
+            && (codecName == null ? other.codecName == null : codecName.equals(other.codecName))
+            && width == other.width && height == other.height
+            && bitRate == other.bitRate && bitrateMode == other.bitrateMode
+            && frameRate == other.frameRate && encoderFrameRate == other.encoderFrameRate
+            && iFrameInterval == other.iFrameInterval
+            && colorFormat == other.colorFormat;
+    }
+
+    @Override
+    public String toString() {
+        return (codecName != null ? codecName : mime) + " " + width + "x" + height
+            + " @ " + (bitRate / 1000) + " kbps, " + frameRate + " fps"
+            + (encoderFrameRate != frameRate ? " (encoder " + encoderFrameRate + " fps)" : "");
+    }
+}
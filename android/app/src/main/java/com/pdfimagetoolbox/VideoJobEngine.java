@@ -0,0 +1,77 @@
+// android/app/src/main/java/com/pdfimagetoolbox/VideoJobEngine.java
+package com.pdfimagetoolbox;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs video renders on a dedicated executor so the shared React
+ * native-modules thread (and every other module on it) stays free while a
+ * long slideshow encodes. Jobs get an id up front and can be cancelled.
+ *
+ * Renders run one at a time: they compete for the same hardware encoder.
+ */
+public class VideoJobEngine {
+    private static final String TAG = "VideoJobEngine";
+
+    public interface Task {
+        String run(RenderJob job) throws Exception;
+    }
+
+    public interface Callback {
+        void onComplete(RenderJob job, String outputPath);
+
+        void onError(RenderJob job, Exception error);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "VideoMaker-job");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public RenderJob submit(RenderJob.Listener listener, final Task task, final Callback callback) {
+        final RenderJob job = new RenderJob("video-" + System.currentTimeMillis() + "-" + sequence.incrementAndGet(), listener);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> {
+            try {
+                job.throwIfCancelled();
+                job.getMetrics().markStarted();
+                // No cancellation check past this point: the task has already
+                // committed its output, and a late cancel would orphan it
+                String outputPath = task.run(job);
+                callback.onComplete(job, outputPath);
+            } catch (Exception e) {
+                job.deleteTempFiles();
+                callback.onError(job, e);
+            } finally {
+                jobs.remove(job.getId());
+            }
+        });
+        Log.d(TAG, "📥 Queued job " + job.getId());
+        return job;
+    }
+
+    /** Flags a queued or running job; it stops at its next cancellation check. */
+    public boolean cancel(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        if (job == null) return false;
+        job.cancel();
+        Log.d(TAG, "🛑 Cancel requested for job " + jobId);
+        return true;
+    }
+
+    public void shutdown() {
+        for (RenderJob job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+    }
+}
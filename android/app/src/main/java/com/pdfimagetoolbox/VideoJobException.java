@@ -0,0 +1,19 @@
+// android/app/src/main/java/com/pdfimagetoolbox/VideoJobException.java
+package com.pdfimagetoolbox;
+
+/**
+ * Render failure carrying the promise rejection code JS expects
+ * (IMAGE_ERROR, AUDIO_ERROR, ...).
+ */
+public class VideoJobException extends Exception {
+    private final String code;
+
+    public VideoJobException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -3,32 +3,94 @@ package com.pdfimagetoolbox;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.media.Image;
 import android.media.MediaCodec;
 import android.media.MediaCodecInfo;
-import android.media.MediaExtractor;
 import android.media.MediaFormat;
 import android.media.MediaMuxer;
 import android.util.Log;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import java.io.File;
+import java.io.FileWriter;
 import java.nio.ByteBuffer;
-import android.os.Build;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import android.os.Bundle;
 
 public class VideoMakerModule extends ReactContextBaseJavaModule {
     private static final String TAG = "VideoMakerModule";
     private static final String MODULE_NAME = "VideoMakerModule";
-    private static final int VIDEO_BIT_RATE = 2000000;
     private static final int FRAME_RATE = 30;
+    // Preview renders: small and choppy (size in VideoDimensions), but a fraction of the full encode time
+    private static final int PREVIEW_FRAME_RATE = 10;
+    private static final int PREVIEWS_KEPT = 2;
     private static final int I_FRAME_INTERVAL = 1;
-    private static final String MIME_TYPE = "video/avc";
+    // Images sampled (as ~128 px thumbnails) to estimate content complexity
+    private static final int COMPLEXITY_SAMPLE_IMAGES = 6;
+    private static final int COMPLEXITY_THUMBNAIL_EDGE = 128;
+    // Assumed audio rate when the track does not declare one
+    private static final int DEFAULT_AUDIO_BIT_RATE = 128000;
     private static final int TIMEOUT_US = 10000;
+    // Frames in flight in the slideshow pipeline: one being encoded + prefetched images
+    private static final int PIPELINE_FRAME_BUFFERS = 3;
+    // Segment-parallel encoding: concurrent encoders used at most, and the shortest segment worth splitting off
+    private static final int MAX_PARALLEL_SEGMENTS = 4;
+    private static final long MIN_SEGMENT_US = 5000000L;
+    // Idle decode / letterbox bitmaps kept for reuse (about four 1080p frames)
+    private static final long BITMAP_POOL_MAX_BYTES = 32L * 1024 * 1024;
+    // Transcoded songs kept across renders (LRU beyond this size)
+    private static final long TRANSCODE_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    // Rendered videos and previews kept on disk; the UI copies keepers to Downloads
+    private static final long VIDEO_STORAGE_BUDGET_BYTES = 512L * 1024 * 1024;
+
+    // JS events for async renders
+    public static final String EVENT_PROGRESS = "VideoMakerProgress";
+    public static final String EVENT_JOB_FINISHED = "VideoMakerJobFinished";
+
+    private static final long METRICS_LOG_MAX_BYTES = 1024 * 1024;
+
+    private final VideoJobEngine engine = new VideoJobEngine();
+    private final RenderJob.Listener progressListener = this::emitProgress;
+    private TranscodeCache transcodeCache;
+    private final MediaStorageManager storage;
+    private final BitmapPool bitmapPool = new BitmapPool(BITMAP_POOL_MAX_BYTES);
+    // One letterbox canvas per decode thread, re-pointed at each output bitmap
+    private final ThreadLocal<Canvas> letterboxCanvas = new ThreadLocal<Canvas>() {
+        @Override
+        protected Canvas initialValue() {
+            return new Canvas();
+        }
+    };
+    private volatile RenderMetrics lastRenderMetrics;
+    private volatile boolean metricsLogEnabled = false;
 
     public VideoMakerModule(ReactApplicationContext reactContext) {
         super(reactContext);
+        storage = new MediaStorageManager(reactContext.getFilesDir(), reactContext.getCacheDir(),
+            VIDEO_STORAGE_BUDGET_BYTES, PREVIEWS_KEPT);
+        // Anything older than this module is left over from a job that never finished
+        final long startedAt = System.currentTimeMillis();
+        Thread sweeper = new Thread(() -> storage.sweepOrphans(startedAt), "VideoMaker-sweep");
+        sweeper.setDaemon(true);
+        sweeper.setPriority(Thread.MIN_PRIORITY);
+        sweeper.start();
     }
 
     @Override
@@ -37,451 +99,657 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
     }
 
     // Single image without audio
+    // videoOptions: see applyVideoOptions
     @ReactMethod
-    public void convertImageToVideo(String imagePath, int durationSeconds, Promise promise) {
-        try {
-            Log.d(TAG, "════════════════════════════════════════");
-            Log.d(TAG, "🎬 Converting SINGLE image to video (NO AUDIO)");
-            Log.d(TAG, "📸 Image: " + imagePath);
-            Log.d(TAG, "⏱️  Duration: " + durationSeconds + " seconds");
-            
-            String cleanedImagePath = cleanFilePath(imagePath);
-            File imageFile = new File(cleanedImagePath);
-            if (!imageFile.exists()) {
-                promise.reject("IMAGE_ERROR", "Image file does not exist: " + cleanedImagePath);
-                return;
-            }
+    public void convertImageToVideo(String imagePath, int durationSeconds, ReadableMap videoOptions, Promise promise) {
+        RenderSpec spec = new RenderSpec(Collections.singletonList(cleanFilePath(imagePath)), null, durationSeconds);
+        applyVideoOptions(spec, videoOptions);
+        runJob(spec, "VIDEO_CREATION_ERROR", promise);
+    }
 
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(cleanedImagePath, options);
-            
-            if (options.outWidth <= 0 || options.outHeight <= 0) {
-                promise.reject("IMAGE_ERROR", "Invalid image dimensions");
-                return;
-            }
-            
-            int[] videoDimensions = calculateVideoDimensions(options.outWidth, options.outHeight);
-            Log.d(TAG, "📐 Video dimensions: " + videoDimensions[0] + "x" + videoDimensions[1]);
+    // Multiple images without audio
+    // videoOptions: see applyVideoOptions
+    @ReactMethod
+    public void convertImagesToVideo(ReadableArray imagePaths, int totalDurationSeconds, ReadableMap videoOptions, Promise promise) {
+        if (imagePaths.size() == 0) {
+            promise.reject("ERROR", "No images provided");
+            return;
+        }
+        RenderSpec spec = new RenderSpec(cleanFilePaths(imagePaths), null, totalDurationSeconds);
+        applyVideoOptions(spec, videoOptions);
+        runJob(spec, "VIDEO_CREATION_ERROR", promise);
+    }
 
-            Bitmap bitmap = loadAndFitBitmap(cleanedImagePath, videoDimensions[0], videoDimensions[1]);
-            if (bitmap == null) {
-                promise.reject("IMAGE_ERROR", "Failed to load image");
-                return;
-            }
+    // Single image with audio
+    @ReactMethod
+    public void convertImageToVideoWithAudio(String imagePath, String audioPath, int durationSeconds, Promise promise) {
+        runJob(new RenderSpec(Collections.singletonList(cleanFilePath(imagePath)), cleanFilePath(audioPath), durationSeconds),
+            "VIDEO_AUDIO_ERROR", promise);
+    }
 
-            File outputFile = createOutputFile();
-            generateVideoFromBitmap(bitmap, outputFile, durationSeconds, videoDimensions[0], videoDimensions[1]);
-            bitmap.recycle();
+    // Multiple images with audio
+    @ReactMethod
+    public void convertImagesToVideoWithAudio(ReadableArray imagePaths, String audioPath, int totalDurationSeconds, Promise promise) {
+        if (imagePaths.size() == 0) {
+            promise.reject("ERROR", "No images provided");
+            return;
+        }
+        runJob(new RenderSpec(cleanFilePaths(imagePaths), cleanFilePath(audioPath), totalDurationSeconds),
+            "SLIDESHOW_AUDIO_ERROR", promise);
+    }
 
-            Log.d(TAG, "✅ Video created successfully: " + outputFile.getAbsolutePath());
-            promise.resolve(outputFile.getAbsolutePath());
-            
+    // ============================================
+    // ASYNC RENDER JOBS
+    // ============================================
+
+    /**
+     * Starts a render and resolves immediately with its job id. Progress arrives
+     * as EVENT_PROGRESS events, the result as EVENT_JOB_FINISHED.
+     * spec: { images: string[], audio?: string, durationSeconds: number, ...videoOptions }
+     */
+    @ReactMethod
+    public void startRenderJob(ReadableMap spec, Promise promise) {
+        try {
+            RenderSpec renderSpec = parseRenderSpec(spec);
+            RenderJob job = engine.submit(progressListener, j -> render(j, renderSpec), new VideoJobEngine.Callback() {
+                @Override
+                public void onComplete(RenderJob job, String outputPath) {
+                    finishJob(job, "completed", outputPath, null);
+                }
+
+                @Override
+                public void onError(RenderJob job, Exception error) {
+                    finishJob(job, error instanceof CancellationException ? "cancelled" : "failed",
+                        null, error.getMessage());
+                }
+            });
+            promise.resolve(job.getId());
         } catch (Exception e) {
-            Log.e(TAG, "💥 Error converting image to video", e);
-            promise.reject("VIDEO_CREATION_ERROR", e.getMessage(), e);
+            promise.reject("INVALID_SPEC", e.getMessage(), e);
         }
     }
 
-    // Multiple images without audio
+    /**
+     * Queues several renders back to back and resolves with their job ids, in
+     * order. The jobs share one encoder pool, so consecutive clips with the same
+     * settings reuse a warm encoder instead of instantiating a new one each time.
+     * Each job reports progress and completion like startRenderJob.
+     */
     @ReactMethod
-    public void convertImagesToVideo(ReadableArray imagePaths, int totalDurationSeconds, Promise promise) {
+    public void startRenderBatch(ReadableArray specs, Promise promise) {
         try {
-            if (imagePaths.size() == 0) {
-                promise.reject("ERROR", "No images provided");
-                return;
+            if (specs == null || specs.size() == 0) {
+                throw new Exception("No render specs provided");
+            }
+            List<RenderSpec> renderSpecs = new ArrayList<>();
+            for (int i = 0; i < specs.size(); i++) {
+                renderSpecs.add(parseRenderSpec(specs.getMap(i)));
             }
 
-            Log.d(TAG, "════════════════════════════════════════");
-            Log.d(TAG, "🎬 Creating slideshow (NO AUDIO)");
-            Log.d(TAG, "📸 Images: " + imagePaths.size());
-            Log.d(TAG, "⏱️  Total Duration: " + totalDurationSeconds + " seconds");
-            Log.d(TAG, "════════════════════════════════════════");
+            final EncoderPool pool = new EncoderPool(maxEncoderInstances(renderSpecs));
+            final AtomicInteger remaining = new AtomicInteger(renderSpecs.size());
+            VideoJobEngine.Callback callback = new VideoJobEngine.Callback() {
+                @Override
+                public void onComplete(RenderJob job, String outputPath) {
+                    finishJob(job, "completed", outputPath, null);
+                    releasePoolAfterLast();
+                }
 
-            String firstImage = cleanFilePath(imagePaths.getString(0));
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(firstImage, options);
-            int[] videoDimensions = calculateVideoDimensions(options.outWidth, options.outHeight);
-            Log.d(TAG, "📐 Video dimensions: " + videoDimensions[0] + "x" + videoDimensions[1]);
+                @Override
+                public void onError(RenderJob job, Exception error) {
+                    finishJob(job, error instanceof CancellationException ? "cancelled" : "failed",
+                        null, error.getMessage());
+                    releasePoolAfterLast();
+                }
 
-            File outputFile = createOutputFile();
-            
-            Log.d(TAG, "⏱️  Requested total duration: " + totalDurationSeconds + " seconds");
-            
-            // Pass total duration so generator can distribute frames precisely
-            generateMultiImageVideo(imagePaths, totalDurationSeconds, videoDimensions[0], videoDimensions[1], outputFile);
-            
-            Log.d(TAG, "✅ Slideshow created successfully: " + outputFile.getAbsolutePath());
-            promise.resolve(outputFile.getAbsolutePath());
-            
+                private void releasePoolAfterLast() {
+                    if (remaining.decrementAndGet() == 0) {
+                        pool.close();
+                    }
+                }
+            };
+
+            WritableArray jobIds = Arguments.createArray();
+            for (RenderSpec renderSpec : renderSpecs) {
+                RenderJob job = engine.submit(progressListener, j -> render(j, renderSpec, pool), callback);
+                jobIds.pushString(job.getId());
+            }
+            Log.d(TAG, "📦 Queued batch of " + renderSpecs.size() + " render(s)");
+            promise.resolve(jobIds);
         } catch (Exception e) {
-            Log.e(TAG, "💥 Error creating slideshow", e);
-            promise.reject("VIDEO_CREATION_ERROR", e.getMessage(), e);
+            promise.reject("INVALID_SPEC", e.getMessage(), e);
         }
     }
 
-    // Single image with audio
+    // Lowest instance limit among the encoders the specs will use
+    private int maxEncoderInstances(List<RenderSpec> specs) {
+        EncoderCapabilities caps = EncoderCapabilities.get(getReactApplicationContext());
+        int limit = Integer.MAX_VALUE;
+        for (RenderSpec spec : specs) {
+            EncoderCapabilities.Codec codec = caps.select(spec.videoMime);
+            limit = Math.min(limit, codec != null ? codec.maxInstances : 1);
+        }
+        return limit;
+    }
+
+    // Resolves true if the job was still queued or running
     @ReactMethod
-    public void convertImageToVideoWithAudio(String imagePath, String audioPath, int durationSeconds, Promise promise) {
-        File tempVideo = null;
-        File processedAudio = null;
-        try {
-            Log.d(TAG, "════════════════════════════════════════");
-            Log.d(TAG, "🎵 Converting SINGLE image to video WITH AUDIO");
-            Log.d(TAG, "📸 Image: " + imagePath);
-            Log.d(TAG, "🎵 Audio: " + audioPath);
-            Log.d(TAG, "⏱️  Duration: " + durationSeconds + " seconds");
+    public void cancelJob(String jobId, Promise promise) {
+        promise.resolve(engine.cancel(jobId));
+    }
 
-            String cleanedImagePath = cleanFilePath(imagePath);
-            String cleanedAudioPath = cleanFilePath(audioPath);
+    // Required by NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {
+    }
 
-            File audioFile = new File(cleanedAudioPath);
-            if (!audioFile.exists()) {
-                promise.reject("AUDIO_ERROR", "Audio file does not exist: " + cleanedAudioPath);
-                return;
-            }
-            Log.d(TAG, "✅ Audio file exists: " + audioFile.length() + " bytes");
+    @ReactMethod
+    public void removeListeners(double count) {
+    }
 
-            // Get audio duration
-            long audioDurationUs = getAudioDuration(cleanedAudioPath);
-            long audioDurationSeconds = audioDurationUs / 1000000;
-            Log.d(TAG, "🎵 Audio duration: " + audioDurationSeconds + " seconds");
-            Log.d(TAG, "📹 Video duration: " + durationSeconds + " seconds");
-
-            // Process audio based on duration comparison
-            if (audioDurationSeconds < durationSeconds) {
-                Log.d(TAG, "🔁 Audio is shorter than video - will loop audio");
-                processedAudio = loopAudio(cleanedAudioPath, durationSeconds);
-                cleanedAudioPath = processedAudio.getAbsolutePath();
-            } else if (audioDurationSeconds > durationSeconds) {
-                Log.d(TAG, "✂️  Audio is longer than video - will trim audio");
-            } else {
-                Log.d(TAG, "✅ Audio and video durations match");
-            }
+    @Override
+    public void invalidate() {
+        engine.shutdown();
+        super.invalidate();
+    }
 
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(cleanedImagePath, options);
-            int[] dims = calculateVideoDimensions(options.outWidth, options.outHeight);
+    // Runs a legacy promise-style call on the job engine; the promise settles when the render does
+    private void runJob(final RenderSpec spec, final String errorCode, final Promise promise) {
+        runJob(job -> render(job, spec), errorCode, promise);
+    }
 
-            Bitmap bitmap = loadAndFitBitmap(cleanedImagePath, dims[0], dims[1]);
-            if (bitmap == null) {
-                promise.reject("IMAGE_ERROR", "Failed to load image");
-                return;
+    private void runJob(VideoJobEngine.Task task, final String errorCode, final Promise promise) {
+        engine.submit(progressListener, task, new VideoJobEngine.Callback() {
+            @Override
+            public void onComplete(RenderJob job, String outputPath) {
+                finishJob(job, "completed", outputPath, null);
+                promise.resolve(outputPath);
             }
 
-            Log.d(TAG, "📹 Step 1: Creating temporary video without audio...");
-            tempVideo = new File(getReactApplicationContext().getCacheDir(), "temp_video_" + System.currentTimeMillis() + ".mp4");
-            generateVideoFromBitmap(bitmap, tempVideo, durationSeconds, dims[0], dims[1]);
-            bitmap.recycle();
-            
-            if (!tempVideo.exists() || tempVideo.length() == 0) {
-                throw new Exception("Temporary video file was not created properly");
+            @Override
+            public void onError(RenderJob job, Exception error) {
+                if (error instanceof CancellationException) {
+                    finishJob(job, "cancelled", null, error.getMessage());
+                    promise.reject("CANCELLED", error.getMessage(), error);
+                } else {
+                    Log.e(TAG, "💥 Render job " + job.getId() + " failed", error);
+                    finishJob(job, "failed", null, error.getMessage());
+                    String code = error instanceof VideoJobException ? ((VideoJobException) error).getCode() : errorCode;
+                    promise.reject(code, error.getMessage(), error);
+                }
             }
-            Log.d(TAG, "✅ Temp video created successfully: " + tempVideo.length() + " bytes");
-            
-            Log.d(TAG, "🎵 Step 2: Merging audio with video...");
-            File outputFile = createOutputFile();
-            mergeAudioWithVideo(tempVideo.getAbsolutePath(), cleanedAudioPath, outputFile.getAbsolutePath(), durationSeconds);
-            
-            if (!outputFile.exists() || outputFile.length() == 0) {
-                throw new Exception("Final video file was not created properly");
+        });
+    }
+
+    private RenderSpec parseRenderSpec(ReadableMap spec) throws Exception {
+        if (spec == null || !spec.hasKey("images") || spec.isNull("images")) {
+            throw new Exception("spec.images is required");
+        }
+        ReadableArray images = spec.getArray("images");
+        if (images.size() == 0) {
+            throw new Exception("No images provided");
+        }
+        String audio = spec.hasKey("audio") && !spec.isNull("audio") ? cleanFilePath(spec.getString("audio")) : null;
+        int durationSeconds = spec.hasKey("durationSeconds") ? spec.getInt("durationSeconds") : 0;
+        if (durationSeconds <= 0) {
+            throw new Exception("spec.durationSeconds must be positive");
+        }
+        RenderSpec renderSpec = new RenderSpec(cleanFilePaths(images), audio, durationSeconds);
+        applyVideoOptions(renderSpec, spec);
+        return renderSpec;
+    }
+
+    /**
+     * Optional render settings shared by the convert* calls and job specs:
+     * - stillImageMode: one keyframe per image plus sparse repeats instead of FRAME_RATE copies per second
+     * - codec: 'hevc' for smaller files where the device has an HEVC encoder (falls back to AVC)
+     * - transition: 'none' | 'crossfade' | 'slide' between slideshow images
+     * - transitionMs: transition length (default 600)
+     * - kenBurns: slow zoom/pan over each image
+     * - targetSizeBytes: keep the file under this size (lowers bitrate, then resolution)
+     * - preview: quick 360 px / 10 fps draft written to the cache; render again without it for the final video
+     */
+    private void applyVideoOptions(RenderSpec spec, ReadableMap options) {
+        if (options == null) return;
+        spec.stillImageMode = getBooleanOption(options, "stillImageMode", spec.stillImageMode);
+        spec.videoMime = getVideoMimeOption(options);
+        spec.kenBurns = getBooleanOption(options, "kenBurns", spec.kenBurns);
+        if (options.hasKey("transition") && !options.isNull("transition")) {
+            String transition = options.getString("transition");
+            if ("crossfade".equalsIgnoreCase(transition) || "fade".equalsIgnoreCase(transition)) {
+                spec.transition = TransitionRenderer.Type.CROSSFADE;
+            } else if ("slide".equalsIgnoreCase(transition)) {
+                spec.transition = TransitionRenderer.Type.SLIDE;
+            } else {
+                spec.transition = TransitionRenderer.Type.NONE;
             }
-            Log.d(TAG, "✅ Final video created: " + outputFile.length() + " bytes");
+        }
+        if (options.hasKey("transitionMs") && !options.isNull("transitionMs")) {
+            spec.transitionMs = Math.max(0, options.getInt("transitionMs"));
+        }
+        if (options.hasKey("targetSizeBytes") && !options.isNull("targetSizeBytes")) {
+            spec.targetSizeBytes = Math.max(0, (long) options.getDouble("targetSizeBytes"));
+        }
+        spec.preview = getBooleanOption(options, "preview", spec.preview);
+    }
 
-            Log.d(TAG, "✅ Video WITH AUDIO created: " + outputFile.getAbsolutePath());
-            promise.resolve(outputFile.getAbsolutePath());
+    // Records the job's metrics and tells JS how it ended
+    private void finishJob(RenderJob job, String status, String outputPath, String error) {
+        recordMetrics(job.getMetrics(), status, outputPath);
+        WritableMap params = Arguments.createMap();
+        params.putString("jobId", job.getId());
+        params.putString("status", status);
+        params.putString("outputPath", outputPath);
+        params.putString("error", error);
+        emit(EVENT_JOB_FINISHED, params);
+    }
 
+    /** Encoders this device offers, so the UI can offer HEVC only where it exists. */
+    @ReactMethod
+    public void getEncoderCapabilities(Promise promise) {
+        try {
+            EncoderCapabilities caps = EncoderCapabilities.get(getReactApplicationContext());
+            WritableMap map = Arguments.createMap();
+            map.putMap("avc", codecToMap(caps.getAvc()));
+            map.putMap("hevc", codecToMap(caps.getHevc()));
+            promise.resolve(map);
         } catch (Exception e) {
-            Log.e(TAG, "💥 Error creating video with audio", e);
-            promise.reject("VIDEO_AUDIO_ERROR", e.getMessage(), e);
-        } finally {
-            if (tempVideo != null && tempVideo.exists()) {
-                boolean deleted = tempVideo.delete();
-                Log.d(TAG, "🗑️  Temp video deleted: " + deleted);
-            }
-            if (processedAudio != null && processedAudio.exists()) {
-                boolean deleted = processedAudio.delete();
-                Log.d(TAG, "🗑️  Processed audio deleted: " + deleted);
-            }
+            promise.reject("CAPABILITIES_ERROR", e.getMessage(), e);
         }
     }
 
-    // Multiple images with audio
+    private WritableMap codecToMap(EncoderCapabilities.Codec codec) {
+        if (codec == null) return null;
+        WritableMap map = Arguments.createMap();
+        map.putString("name", codec.name);
+        map.putBoolean("hardware", codec.hardware);
+        map.putInt("maxWidth", codec.maxWidth);
+        map.putInt("maxHeight", codec.maxHeight);
+        map.putInt("widthAlignment", codec.widthAlignment);
+        map.putInt("heightAlignment", codec.heightAlignment);
+        map.putInt("maxBitrate", codec.maxBitrate);
+        map.putBoolean("vbr", codec.vbr);
+        map.putBoolean("cbr", codec.cbr);
+        map.putBoolean("cq", codec.cq);
+        map.putInt("maxInstances", codec.maxInstances);
+        return map;
+    }
+
+    // ============================================
+    // STORAGE
+    // ============================================
+
+    /** Disk used by rendered videos, previews, the audio cache and leftover temp files (bytes). */
     @ReactMethod
-    public void convertImagesToVideoWithAudio(ReadableArray imagePaths, String audioPath, int totalDurationSeconds, Promise promise) {
-        File tempVideo = null;
-        File processedAudio = null;
+    public void getMediaStorageUsage(Promise promise) {
         try {
-            if (imagePaths.size() == 0) {
-                promise.reject("ERROR", "No images provided");
-                return;
+            MediaStorageManager.Usage usage = storage.getUsage();
+            WritableMap map = Arguments.createMap();
+            map.putDouble("videoBytes", usage.videoBytes);
+            map.putInt("videoCount", usage.videoCount);
+            map.putDouble("previewBytes", usage.previewBytes);
+            map.putDouble("transcodeCacheBytes", usage.transcodeCacheBytes);
+            map.putDouble("tempBytes", usage.tempBytes);
+            map.putDouble("budgetBytes", usage.budgetBytes);
+            promise.resolve(map);
+        } catch (Exception e) {
+            promise.reject("STORAGE_ERROR", e.getMessage(), e);
+        }
+    }
+
+    // Call when a rendered video is shown or shared again so eviction spares it; resolves false for unknown paths
+    @ReactMethod
+    public void touchVideo(String videoPath, Promise promise) {
+        promise.resolve(storage.touch(new File(cleanFilePath(videoPath))));
+    }
+
+    // Call once a rendered video has been copied out (e.g. to Downloads); until then it is never evicted
+    @ReactMethod
+    public void markVideoExported(String videoPath, Promise promise) {
+        try {
+            promise.resolve(storage.markExported(new File(cleanFilePath(videoPath))));
+        } catch (Exception e) {
+            promise.reject("STORAGE_ERROR", e.getMessage(), e);
+        }
+    }
+
+    // Deletes a rendered video or preview the user discarded; resolves false for unknown paths
+    @ReactMethod
+    public void deleteVideo(String videoPath, Promise promise) {
+        promise.resolve(storage.deleteVideo(new File(cleanFilePath(videoPath))));
+    }
+
+    // ============================================
+    // RENDER METRICS
+    // ============================================
+
+    /** Metrics of the most recently finished render, or null if none has run yet. */
+    @ReactMethod
+    public void getLastRenderMetrics(Promise promise) {
+        RenderMetrics metrics = lastRenderMetrics;
+        if (metrics == null) {
+            promise.resolve(null);
+            return;
+        }
+        WritableMap map = Arguments.createMap();
+        map.putString("jobId", metrics.getJobId());
+        map.putString("status", metrics.getStatus());
+        map.putDouble("startedAtMs", metrics.getStartedAtMs());
+        map.putInt("width", metrics.getWidth());
+        map.putInt("height", metrics.getHeight());
+        map.putDouble("wallMs", metrics.getWallNanos() / 1e6);
+        WritableMap stages = Arguments.createMap();
+        for (RenderMetrics.Stage stage : RenderMetrics.Stage.values()) {
+            stages.putDouble(stage.key, metrics.getStageNanos(stage) / 1e6);
+        }
+        map.putMap("stageMs", stages);
+        map.putInt("framesEncoded", metrics.getFramesEncoded());
+        map.putDouble("framesPerSecond", metrics.getFramesPerSecond());
+        map.putDouble("bytesWritten", metrics.getBytesWritten());
+        map.putDouble("peakBitmapBytes", metrics.getPeakBitmapBytes());
+        promise.resolve(map);
+    }
+
+    // When enabled every finished render appends one JSON line to files/logs/render_metrics.jsonl
+    @ReactMethod
+    public void setRenderMetricsLogEnabled(boolean enabled, Promise promise) {
+        metricsLogEnabled = enabled;
+        promise.resolve(getMetricsLogFile().getAbsolutePath());
+    }
+
+    private void recordMetrics(RenderMetrics metrics, String status, String outputPath) {
+        long bytesWritten = outputPath != null ? new File(outputPath).length() : 0;
+        metrics.finish(status, bytesWritten);
+        lastRenderMetrics = metrics;
+        Log.d(TAG, "📊 " + metrics.toJsonLine());
+        if (metricsLogEnabled) {
+            appendMetricsLog(metrics);
+        }
+    }
+
+    private synchronized void appendMetricsLog(RenderMetrics metrics) {
+        File logFile = getMetricsLogFile();
+        try {
+            File dir = logFile.getParentFile();
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new Exception("Failed to create logs directory");
+            }
+            // Start over rather than grow without bound
+            boolean append = logFile.length() < METRICS_LOG_MAX_BYTES;
+            try (FileWriter writer = new FileWriter(logFile, append)) {
+                writer.write(metrics.toJsonLine());
+                writer.write('\n');
             }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️  Could not write render metrics log: " + e.getMessage());
+        }
+    }
+
+    private File getMetricsLogFile() {
+        return new File(new File(getReactApplicationContext().getFilesDir(), "logs"), "render_metrics.jsonl");
+    }
 
+    private void emit(String eventName, WritableMap params) {
+        ReactApplicationContext context = getReactApplicationContext();
+        if (!context.hasActiveReactInstance()) return;
+        context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, params);
+    }
+
+    /**
+     * Renders one spec on the job thread. Single images are converted once and
+     * reused; several images go through the prefetching slideshow pipeline.
+     * Audio, if any, is interleaved in the same pass.
+     */
+    private String render(RenderJob job, RenderSpec spec) throws Exception {
+        // Sized to the device's encoder sessions so long slideshows can encode segments in parallel
+        try (EncoderPool encoders = new EncoderPool(maxEncoderInstances(Collections.singletonList(spec)))) {
+            return render(job, spec, encoders);
+        }
+    }
+
+    private String render(RenderJob job, RenderSpec spec, EncoderPool encoders) throws Exception {
+        RenderMetrics metrics = job.getMetrics();
+        AudioSampleSource audioSource = null;
+        Bitmap bitmap = null;
+        try {
             Log.d(TAG, "════════════════════════════════════════");
-            Log.d(TAG, "🎵 Creating slideshow WITH AUDIO");
-            Log.d(TAG, "📸 Images: " + imagePaths.size());
-            Log.d(TAG, "🎵 Audio: " + audioPath);
-            Log.d(TAG, "⏱️  Total Duration: " + totalDurationSeconds + " seconds");
+            Log.d(TAG, "🎬 Render job " + job.getId() + ": " + spec.imagePaths.size() + " image(s)"
+                + (spec.hasAudio() ? " WITH AUDIO" : " (NO AUDIO)"));
+            Log.d(TAG, "⏱️  Duration: " + spec.durationSeconds + " seconds");
+            Log.d(TAG, "🖼️  Still image mode: " + spec.stillImageMode);
+            if (spec.preview) {
+                Log.d(TAG, "👀 Preview render: " + VideoDimensions.PREVIEW_LONG_EDGE + " px, " + PREVIEW_FRAME_RATE + " fps");
+            }
+            if (spec.hasMotion()) {
+                Log.d(TAG, "🎞️  Transition: " + spec.transition + ", Ken Burns: " + spec.kenBurns);
+            }
+            if (spec.hasAudio()) {
+                Log.d(TAG, "🎵 Audio: " + spec.audioPath);
+            }
             Log.d(TAG, "════════════════════════════════════════");
 
-            String cleanedAudioPath = cleanFilePath(audioPath);
-
-            File audioFile = new File(cleanedAudioPath);
-            if (!audioFile.exists()) {
-                promise.reject("AUDIO_ERROR", "Audio file does not exist: " + cleanedAudioPath);
-                return;
+            String firstImage = spec.imagePaths.get(0);
+            if (spec.isSingleImage() && !new File(firstImage).exists()) {
+                throw new VideoJobException("IMAGE_ERROR", "Image file does not exist: " + firstImage);
             }
-            Log.d(TAG, "✅ Audio file exists: " + audioFile.length() + " bytes");
 
-            // Get audio duration
-            long audioDurationUs = getAudioDuration(cleanedAudioPath);
-            long audioDurationSeconds = audioDurationUs / 1000000;
-            Log.d(TAG, "🎵 Audio duration: " + audioDurationSeconds + " seconds");
-            Log.d(TAG, "📹 Video duration: " + totalDurationSeconds + " seconds");
-
-            // Process audio based on duration comparison
-            if (audioDurationSeconds < totalDurationSeconds) {
-                Log.d(TAG, "🔁 Audio is shorter than video - will loop audio");
-                processedAudio = loopAudio(cleanedAudioPath, totalDurationSeconds);
-                cleanedAudioPath = processedAudio.getAbsolutePath();
-            } else if (audioDurationSeconds > totalDurationSeconds) {
-                Log.d(TAG, "✂️  Audio is longer than video - will trim audio");
-            } else {
-                Log.d(TAG, "✅ Audio and video durations match");
+            AudioProbe muxAudio = null;
+            if (spec.hasAudio()) {
+                File audioFile = new File(spec.audioPath);
+                if (!audioFile.exists()) {
+                    throw new VideoJobException("AUDIO_ERROR", "Audio file does not exist: " + spec.audioPath);
+                }
+                Log.d(TAG, "✅ Audio file exists: " + audioFile.length() + " bytes");
+                long audioStart = metrics.begin();
+                muxAudio = prepareAudioForMux(spec.audioPath);
+                metrics.end(RenderMetrics.Stage.AUDIO_PREPARE, audioStart);
+                if (muxAudio == null) {
+                    Log.w(TAG, "⚠️  No audio track in " + spec.audioPath + " - proceeding without audio");
+                }
+                job.throwIfCancelled();
             }
 
-            String firstImage = cleanFilePath(imagePaths.getString(0));
             BitmapFactory.Options options = new BitmapFactory.Options();
             options.inJustDecodeBounds = true;
             BitmapFactory.decodeFile(firstImage, options);
-            int[] dims = calculateVideoDimensions(options.outWidth, options.outHeight);
+            if (spec.isSingleImage() && (options.outWidth <= 0 || options.outHeight <= 0)) {
+                throw new VideoJobException("IMAGE_ERROR", "Invalid image dimensions");
+            }
+            if (muxAudio != null) {
+                audioSource = openAudioSource(muxAudio, spec.durationSeconds);
+            }
 
-            Log.d(TAG, "📹 Step 1: Creating temporary video without audio...");
-            tempVideo = new File(getReactApplicationContext().getCacheDir(), "temp_slideshow_" + System.currentTimeMillis() + ".mp4");
-            
-            Log.d(TAG, "⏱️  Requested total duration: " + totalDurationSeconds + " seconds");
-            
-            // Pass total duration so generator can distribute frames precisely
-            generateMultiImageVideo(imagePaths, totalDurationSeconds, dims[0], dims[1], tempVideo);
-            
-            if (!tempVideo.exists() || tempVideo.length() == 0) {
-                throw new Exception("Temporary video file was not created properly");
+            // A preview's bitrate sits at the floor anyway, so skip the content probe
+            float complexity = 0f;
+            if (!spec.preview) {
+                long analyzeStart = metrics.begin();
+                complexity = estimateComplexity(spec.imagePaths);
+                metrics.end(RenderMetrics.Stage.ANALYZE, analyzeStart);
             }
-            Log.d(TAG, "✅ Temp video created successfully: " + tempVideo.length() + " bytes");
-            
-            Log.d(TAG, "🎵 Step 2: Merging audio with video...");
-            File outputFile = createOutputFile();
-            mergeAudioWithVideo(tempVideo.getAbsolutePath(), cleanedAudioPath, outputFile.getAbsolutePath(), totalDurationSeconds);
-            
+            int audioBitRate = audioSource != null ? getAudioBitRate(audioSource.getFormat()) : 0;
+            VideoEncoderConfig config = buildEncoderConfig(spec, options.outWidth, options.outHeight,
+                complexity, audioBitRate);
+            int[] dims = {config.width, config.height};
+            Log.d(TAG, "📐 Video dimensions: " + dims[0] + "x" + dims[1]);
+            Log.d(TAG, "🎛️  Encoder: " + config);
+            metrics.setDimensions(dims[0], dims[1]);
+
+            if (spec.isSingleImage()) {
+                long decodeStart = metrics.begin();
+                bitmap = loadAndFitBitmap(firstImage, dims[0], dims[1], metrics);
+                metrics.end(RenderMetrics.Stage.DECODE, decodeStart);
+                if (bitmap == null) {
+                    throw new VideoJobException("IMAGE_ERROR", "Failed to load image");
+                }
+            }
+
+            File outputFile = spec.preview ? storage.newPreviewFile() : storage.newOutputFile();
+            job.trackTempFile(outputFile);
+            if (spec.isSingleImage()) {
+                generateVideoFromBitmap(job, bitmap, outputFile, spec, config, encoders, audioSource);
+            } else {
+                generateMultiImageVideo(job, spec, config, encoders, outputFile, audioSource);
+            }
+
             if (!outputFile.exists() || outputFile.length() == 0) {
                 throw new Exception("Final video file was not created properly");
             }
-            Log.d(TAG, "✅ Final video created: " + outputFile.length() + " bytes");
+            applyFastStart(outputFile, metrics);
+            job.untrackTempFile(outputFile);
+            storage.commit(outputFile);
+            Log.d(TAG, "✅ Video created: " + outputFile.getAbsolutePath() + " (" + outputFile.length() + " bytes)");
+            return outputFile.getAbsolutePath();
 
-            Log.d(TAG, "✅ Slideshow WITH AUDIO created: " + outputFile.getAbsolutePath());
-            promise.resolve(outputFile.getAbsolutePath());
-
-        } catch (Exception e) {
-            Log.e(TAG, "💥 Error creating slideshow with audio", e);
-            promise.reject("SLIDESHOW_AUDIO_ERROR", e.getMessage(), e);
         } finally {
-            if (tempVideo != null && tempVideo.exists()) {
-                boolean deleted = tempVideo.delete();
-                Log.d(TAG, "🗑️  Temp video deleted: " + deleted);
+            if (audioSource != null) {
+                audioSource.close();
             }
-            if (processedAudio != null && processedAudio.exists()) {
-                boolean deleted = processedAudio.delete();
-                Log.d(TAG, "🗑️  Processed audio deleted: " + deleted);
+            if (bitmap != null) {
+                metrics.bitmapReleased(bitmap.getByteCount());
+                bitmapPool.release(bitmap);
             }
+            bitmapPool.clear();
         }
     }
 
     // ============================================
-    // NEW METHOD: Get Audio Duration
+    // REMUX (no re-encoding)
     // ============================================
-    
-    private long getAudioDuration(String audioPath) throws Exception {
-        MediaExtractor extractor = new MediaExtractor();
+
+    /**
+     * Adds (or replaces) the soundtrack of an existing video without
+     * re-encoding it. Audio is looped or trimmed to the video's length and
+     * interleaved with the video by timestamp; the result is fast-start.
+     */
+    @ReactMethod
+    public void addAudioToVideo(String videoPath, String audioPath, Promise promise) {
+        final String cleanedVideoPath = cleanFilePath(videoPath);
+        final String cleanedAudioPath = cleanFilePath(audioPath);
+        runJob(job -> remuxAudioIntoVideo(job, cleanedVideoPath, cleanedAudioPath), "REMUX_ERROR", promise);
+    }
+
+    private String remuxAudioIntoVideo(RenderJob job, String videoPath, String audioPath) throws Exception {
+        RenderMetrics metrics = job.getMetrics();
+        if (!new File(videoPath).exists()) {
+            throw new VideoJobException("VIDEO_ERROR", "Video file does not exist: " + videoPath);
+        }
+        if (!new File(audioPath).exists()) {
+            throw new VideoJobException("AUDIO_ERROR", "Audio file does not exist: " + audioPath);
+        }
+        long audioStart = metrics.begin();
+        AudioProbe muxAudio = prepareAudioForMux(audioPath);
+        metrics.end(RenderMetrics.Stage.AUDIO_PREPARE, audioStart);
+        job.throwIfCancelled();
+
+        MediaRemuxer remuxer = new MediaRemuxer();
+        int videoTrack = remuxer.addTrack(videoPath, "video/", 0, Long.MAX_VALUE);
+        if (videoTrack < 0) {
+            throw new VideoJobException("VIDEO_ERROR", "No video track found in " + videoPath);
+        }
+        MediaFormat videoFormat = remuxer.getTrackFormat(videoTrack);
+        long videoDurationUs = videoFormat.containsKey(MediaFormat.KEY_DURATION)
+            ? videoFormat.getLong(MediaFormat.KEY_DURATION) : Long.MAX_VALUE;
+
+        if (muxAudio == null) {
+            throw new VideoJobException("AUDIO_ERROR", "No audio track found in " + audioPath);
+        }
+        int loops = addLoopedAudio(remuxer, muxAudio, videoDurationUs);
+
+        File outputFile = storage.newOutputFile();
+        job.trackTempFile(outputFile);
+        long muxStart = metrics.begin();
+        remuxer.writeTo(outputFile);
+        metrics.end(RenderMetrics.Stage.AUDIO_MUX, muxStart);
+        Log.d(TAG, "🔊 Remuxed audio into video - " + remuxer.getSamplesWritten() + " samples, "
+            + loops + " loop(s)");
+
+        applyFastStart(outputFile, metrics);
+        job.untrackTempFile(outputFile);
+        storage.commit(outputFile);
+        return outputFile.getAbsolutePath();
+    }
+
+    /**
+     * Adds the probed audio as a track cut at durationUs; short audio is
+     * looped by replaying the same file at later offsets. No extractor is
+     * opened here - the probe already has the track.
+     *
+     * @return number of loop restarts
+     */
+    private int addLoopedAudio(MediaRemuxer remuxer, AudioProbe audio, long durationUs) {
+        int audioTrack = remuxer.addTrack(audio.path, audio.trackIndex, audio.format, 0, durationUs);
+        int loops = 0;
+        if (audio.durationUs > 0 && durationUs != Long.MAX_VALUE) {
+            for (long offset = audio.durationUs; offset < durationUs; offset += audio.durationUs) {
+                remuxer.appendSegment(audioTrack, audio.path, audio.trackIndex, audio.format, offset, durationUs - offset);
+                loops++;
+            }
+        }
+        return loops;
+    }
+
+    // Moves moov ahead of mdat so playback starts before the whole file is read; failures keep the original
+    private void applyFastStart(File outputFile, RenderMetrics metrics) {
+        long start = metrics.begin();
+        File rewritten = new File(outputFile.getPath() + ".faststart");
         try {
-            extractor.setDataSource(audioPath);
-            
-            for (int i = 0; i < extractor.getTrackCount(); i++) {
-                MediaFormat format = extractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                
-                if (mime.startsWith("audio/")) {
-                    long durationUs = format.getLong(MediaFormat.KEY_DURATION);
-                    return durationUs;
-                }
+            if (Mp4FastStart.process(outputFile, rewritten) && rewritten.renameTo(outputFile)) {
+                Log.d(TAG, "⚡ Fast-start: moov moved to front");
             }
-            
-            throw new Exception("No audio track found in file");
-            
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️  Fast-start rewrite failed, keeping muxer output: " + e.getMessage());
         } finally {
-            extractor.release();
+            if (rewritten.exists()) {
+                rewritten.delete();
+            }
+            metrics.end(RenderMetrics.Stage.FAST_START, start);
         }
     }
 
     // ============================================
-    // NEW METHOD: Loop Audio to Match Video Duration
+    // AUDIO PREPARATION FOR SINGLE-PASS MUXING
     // ============================================
-    
-    private File loopAudio(String audioPath, int targetDurationSeconds) throws Exception {
-        Log.d(TAG, "🔁 Starting audio loop process...");
-        
-        MediaExtractor extractor = new MediaExtractor();
-        
-        try {
-            extractor.setDataSource(audioPath);
-            
-            int audioTrackIndex = -1;
-            MediaFormat audioFormat = null;
-            
-            for (int i = 0; i < extractor.getTrackCount(); i++) {
-                MediaFormat format = extractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                if (mime.startsWith("audio/")) {
-                    audioTrackIndex = i;
-                    audioFormat = format;
-                    break;
-                }
-            }
-            
-            if (audioTrackIndex == -1) {
-                throw new Exception("No audio track found");
-            }
-            
-            String audioMime = audioFormat.getString(MediaFormat.KEY_MIME);
-            Log.d(TAG, "🎵 Audio format: " + audioMime);
-            
-            // If MP3, convert to AAC first before looping
-            if (audioMime != null && (audioMime.equalsIgnoreCase("audio/mpeg") || audioMime.contains("mpeg") || audioMime.contains("mp3"))) {
-                Log.d(TAG, "🔁 MP3 detected - converting to AAC before looping");
-                extractor.release();
-                
-                String aacPath = convertMp3ToAac(audioPath);
-                if (aacPath == null) {
-                    throw new Exception("Failed to convert MP3 to AAC");
-                }
-                
-                Log.d(TAG, "✅ MP3 converted to AAC, now looping AAC file");
-                
-                File result = loopAacAudio(aacPath, targetDurationSeconds);
-                
-                // Clean up temp converted file
-                try {
-                    new File(aacPath).delete();
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not delete temp AAC file");
-                }
-                
-                return result;
-            } else {
-                extractor.release();
-                return loopAacAudio(audioPath, targetDurationSeconds);
+
+    /**
+     * Returns the probe of the file to mux audio from: the source itself, or a
+     * cached AAC transcode when the source is MP3 - null if audioPath has no
+     * audio track. Looping and trimming both happen while interleaving (see
+     * AudioSampleSource).
+     */
+    private AudioProbe prepareAudioForMux(String audioPath) throws Exception {
+        AudioProbe source = AudioProbe.of(audioPath);
+        if (source == null) return null;
+        // MP3 samples cannot go into an MP4 AAC track - convert first
+        if (source.isMp3()) {
+            Log.d(TAG, "🔁 Detected MP3 audio, converting to AAC to avoid muxer issues...");
+            AudioProbe converted = AudioProbe.of(convertMp3ToAac(source));
+            if (converted == null) {
+                throw new Exception("Failed to convert MP3 to AAC");
             }
-            
-        } catch (Exception e) {
-            extractor.release();
-            throw e;
+            return converted;
         }
+        return source;
     }
-    
-    private File loopAacAudio(String audioPath, int targetDurationSeconds) throws Exception {
-        Log.d(TAG, "🔁 Looping AAC audio...");
-        
-        MediaExtractor extractor = new MediaExtractor();
-        MediaMuxer muxer = null;
-        
+
+    // Opens the audio for interleaving; an unreadable track yields a video-only file, as before
+    private AudioSampleSource openAudioSource(AudioProbe audio, int targetDurationSeconds) {
         try {
-            extractor.setDataSource(audioPath);
-            
-            int audioTrackIndex = -1;
-            MediaFormat audioFormat = null;
-            
-            for (int i = 0; i < extractor.getTrackCount(); i++) {
-                MediaFormat format = extractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                if (mime.startsWith("audio/")) {
-                    audioTrackIndex = i;
-                    audioFormat = format;
-                    break;
-                }
-            }
-            
-            if (audioTrackIndex == -1) {
-                throw new Exception("No audio track found");
-            }
-            
-            long audioDurationUs = audioFormat.getLong(MediaFormat.KEY_DURATION);
-            long targetDurationUs = targetDurationSeconds * 1000000L;
-            
-            int loopCount = (int) Math.ceil((double) targetDurationUs / audioDurationUs);
-            Log.d(TAG, "🔁 Will loop audio " + loopCount + " times");
-            
-            File loopedAudio = new File(getReactApplicationContext().getCacheDir(), 
-                "looped_audio_" + System.currentTimeMillis() + ".m4a");
-            
-            muxer = new MediaMuxer(loopedAudio.getAbsolutePath(), 
-                MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
-            
-            // Sanitize format before adding
-            MediaFormat sanitizedFormat = sanitizeMediaFormat(audioFormat);
-            int muxerTrackIndex = muxer.addTrack(sanitizedFormat);
-            muxer.start();
-            
-            extractor.selectTrack(audioTrackIndex);
-            
-            ByteBuffer buffer = ByteBuffer.allocate(512 * 1024);
-            MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
-            
-            long totalWrittenUs = 0;
-            
-            for (int loop = 0; loop < loopCount; loop++) {
-                extractor.seekTo(0, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
-                
-                while (true) {
-                    buffer.clear();
-                    int sampleSize = extractor.readSampleData(buffer, 0);
-                    if (sampleSize < 0) break;
-                    
-                    long sampleTime = extractor.getSampleTime();
-                    long adjustedTime = totalWrittenUs + sampleTime;
-                    
-                    if (adjustedTime >= targetDurationUs) {
-                        Log.d(TAG, "✅ Reached target duration, stopping audio loop");
-                        break;
-                    }
-                    
-                    bufferInfo.set(0, sampleSize, adjustedTime, extractor.getSampleFlags());
-                    muxer.writeSampleData(muxerTrackIndex, buffer, bufferInfo);
-                    
-                    extractor.advance();
-                }
-                
-                totalWrittenUs += audioDurationUs;
-                
-                if (totalWrittenUs >= targetDurationUs) {
-                    break;
-                }
-            }
-            
-            Log.d(TAG, "✅ Audio looped successfully");
-            return loopedAudio;
-            
-        } finally {
-            extractor.release();
-            if (muxer != null) {
-                try {
-                    muxer.stop();
-                    muxer.release();
-                    Log.d(TAG, "Muxer released");
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing muxer", e);
-                }
+            long audioDurationSeconds = audio.durationUs / 1000000;
+            Log.d(TAG, "🎵 Audio duration: " + audioDurationSeconds + " seconds");
+            Log.d(TAG, "📹 Video duration: " + targetDurationSeconds + " seconds");
+
+            boolean loop = audioDurationSeconds < targetDurationSeconds;
+            if (loop) {
+                Log.d(TAG, "🔁 Audio is shorter than video - will loop audio while muxing");
+            } else if (audioDurationSeconds > targetDurationSeconds) {
+                Log.d(TAG, "✂️  Audio is longer than video - will trim audio");
+            } else {
+                Log.d(TAG, "✅ Audio and video durations match");
             }
+            return new AudioSampleSource(audio, targetDurationSeconds * 1000000L, loop);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️  No usable audio track - proceeding without audio: " + e.getMessage());
+            return null;
         }
     }
 
@@ -489,251 +757,302 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
     // VIDEO GENERATION METHODS
     // ============================================
 
-    private void generateVideoFromBitmap(Bitmap bitmap, File outputFile, int duration, int width, int height) throws Exception {
+    // audio is optional - when present its samples are interleaved into the same muxer
+    private void generateVideoFromBitmap(RenderJob job, final Bitmap bitmap, File outputFile, RenderSpec spec,
+                                         VideoEncoderConfig config, EncoderPool encoders,
+                                         AudioSampleSource audio) throws Exception {
         Log.d(TAG, "🎥 Starting video generation from single bitmap");
-        
-        MediaCodec encoder = null;
-        MediaMuxer muxer = null;
-        
+
+        FramePlan plan = createFramePlan(spec, config);
+
+        // A one-image pipeline: the bitmap is converted once and reused for every frame
+        final RenderMetrics metrics = job.getMetrics();
+        FramePipeline pipeline = new FramePipeline(1, 1, 1, (imageIndex, out) -> {
+            long convertStart = metrics.begin();
+            convertBitmapToYUV420(bitmap, new YuvConverter(), out);
+            metrics.end(RenderMetrics.Stage.CONVERT, convertStart);
+        });
         try {
-            MediaFormat format = MediaFormat.createVideoFormat(MIME_TYPE, width, height);
-            format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
-            format.setInteger(MediaFormat.KEY_BIT_RATE, VIDEO_BIT_RATE);
-            format.setInteger(MediaFormat.KEY_FRAME_RATE, FRAME_RATE);
-            format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, I_FRAME_INTERVAL);
-            // Ensure encoder has enough input buffer size for our YUV frames
-            format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, width * height * 3 / 2);
-            // Ensure encoder has enough input buffer size for our YUV frames
-            format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, width * height * 3 / 2);
-            
-            encoder = MediaCodec.createEncoderByType(MIME_TYPE);
-            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
-            encoder.start();
-            Log.d(TAG, "✅ Encoder started");
-            
-            muxer = new MediaMuxer(outputFile.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
-            
-            MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
-            int trackIndex = -1;
-            boolean muxerStarted = false;
-            
-            int totalFrames = FRAME_RATE * duration;
-            byte[] yuvData = convertBitmapToYUV420(bitmap, width, height);
-            
-            long presentationTimeUs = 0;
-            int frameIndex = 0;
-            boolean encodingDone = false;
-            
-            Log.d(TAG, "📹 Encoding " + totalFrames + " frames for " + duration + " seconds...");
-            
-            while (!encodingDone) {
-                if (frameIndex < totalFrames) {
-                    int inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
-                    if (inputBufferIndex >= 0) {
-                        ByteBuffer inputBuffer = encoder.getInputBuffer(inputBufferIndex);
-                        inputBuffer.clear();
-                        long pts = computePresentationTimeUs(frameIndex);
-
-                        // Defensive: ensure buffer can hold data
-                        if (inputBuffer.remaining() >= yuvData.length) {
-                            inputBuffer.put(yuvData);
-                            encoder.queueInputBuffer(inputBufferIndex, 0, yuvData.length, pts, 0);
-                        } else {
-                            // If input buffer is smaller than expected, write in chunks
-                            int offset = 0;
-                            while (offset < yuvData.length) {
-                                int toWrite = Math.min(inputBuffer.remaining(), yuvData.length - offset);
-                                inputBuffer.put(yuvData, offset, toWrite);
-                                encoder.queueInputBuffer(inputBufferIndex, 0, toWrite, pts, 0);
-                                offset += toWrite;
-                                // try get next input buffer for remaining data
-                                inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
-                                if (inputBufferIndex < 0) break;
-                                inputBuffer = encoder.getInputBuffer(inputBufferIndex);
-                                inputBuffer.clear();
-                            }
-                        }
+            encodeFramePlan(job, plan, pipeline, config, encoders, outputFile, spec, audio, plan.frameCount());
+        } finally {
+            pipeline.close();
+        }
+    }
 
-                        presentationTimeUs = pts;
-                        frameIndex++;
-                    }
-                } else if (frameIndex == totalFrames) {
-                    int inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
-                    if (inputBufferIndex >= 0) {
-                        long pts = computePresentationTimeUs(frameIndex - 1);
-                        encoder.queueInputBuffer(inputBufferIndex, 0, 0, pts, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
-                        frameIndex++;
-                        Log.d(TAG, "🏁 End of stream signaled");
-                    }
-                }
-                
-                int outputBufferIndex = encoder.dequeueOutputBuffer(bufferInfo, TIMEOUT_US);
-                
-                if (outputBufferIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
-                    if (muxerStarted) {
-                        throw new RuntimeException("Format changed twice");
-                    }
-                    MediaFormat newFormat = encoder.getOutputFormat();
-                    trackIndex = muxer.addTrack(newFormat);
-                    muxer.start();
-                    muxerStarted = true;
-                    Log.d(TAG, "✅ Muxer started with track index: " + trackIndex);
-                    
-                } else if (outputBufferIndex >= 0) {
-                    ByteBuffer outputBuffer = encoder.getOutputBuffer(outputBufferIndex);
-                    
-                    if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-                        bufferInfo.size = 0;
-                    }
-                    
-                    if (bufferInfo.size > 0 && muxerStarted) {
-                        outputBuffer.position(bufferInfo.offset);
-                        outputBuffer.limit(bufferInfo.offset + bufferInfo.size);
-                        muxer.writeSampleData(trackIndex, outputBuffer, bufferInfo);
+    // durationSeconds is the total requested video duration (seconds).
+    private void generateMultiImageVideo(RenderJob job, RenderSpec spec, VideoEncoderConfig config,
+                                         EncoderPool encoders, File outputFile,
+                                         AudioSampleSource audio) throws Exception {
+        Log.d(TAG, "🎥 Starting multi-image video generation");
+
+        // Compute exact frame distribution so sum(framesPerImage) == FRAME_RATE * durationSeconds
+        int imageCount = spec.imagePaths.size();
+        FramePlan plan = createFramePlan(spec, config);
+
+        Log.d(TAG, "📹 Encoding " + plan.frameCount() + " total frames (distributed across " + imageCount + " images)");
+        Log.d(TAG, "⏱️  Total video duration: " + (plan.durationUs() / 1000000f) + " seconds"
+            + (spec.isStillImage() ? " (still image mode)" : ""));
+
+        // Transitions blend across image boundaries, so only cut-only timelines can be split
+        int[] segments = spec.transition == TransitionRenderer.Type.NONE && !spec.preview
+            ? plan.segmentBoundaries(Math.min(encoders.getMaxInstances(), MAX_PARALLEL_SEGMENTS), MIN_SEGMENT_US)
+            : new int[] {0, imageCount};
+        if (segments.length > 2
+            && encodeSegmentsInParallel(job, spec, config, encoders, plan, segments, outputFile, audio)) {
+            return;
+        }
+
+        // Start decoding the first images on worker threads while the codec spins up
+        FramePipeline pipeline = createFramePipeline(spec.imagePaths, config.width, config.height,
+            FramePipeline.defaultWorkerCount(PIPELINE_FRAME_BUFFERS), job.getMetrics());
+        try {
+            encodeFramePlan(job, plan, pipeline, config, encoders, outputFile, spec, audio, plan.frameCount());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Encodes the images between consecutive boundaries as separate files on
+     * concurrent encoders, then joins them without re-encoding: every segment
+     * opens on an IDR frame and is placed at its original start time, so the
+     * joined track plays exactly like a serial encode. Audio is added in the
+     * same remux pass.
+     *
+     * @return false when the segments came out with different codec configs
+     *         and cannot be joined - the caller then encodes serially
+     */
+    private boolean encodeSegmentsInParallel(final RenderJob job, final RenderSpec spec, final VideoEncoderConfig config,
+                                             final EncoderPool encoders, final FramePlan plan, int[] boundaries,
+                                             File outputFile, AudioSampleSource audio) throws Exception {
+        final int segmentCount = boundaries.length - 1;
+        final int totalFrames = plan.frameCount();
+        final int workersPerSegment = Math.max(1, FramePipeline.defaultWorkerCount(PIPELINE_FRAME_BUFFERS) / segmentCount);
+        Log.d(TAG, "🧩 Encoding " + segmentCount + " segments in parallel ("
+            + encoders.getMaxInstances() + " encoder session(s) available)");
+
+        File[] parts = new File[segmentCount];
+        ExecutorService executor = Executors.newFixedThreadPool(segmentCount, r -> {
+            Thread t = new Thread(r, "VideoMaker-segment");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < segmentCount; i++) {
+                final FramePlan segment = plan.slice(boundaries[i], boundaries[i + 1]);
+                final List<String> paths = spec.imagePaths.subList(boundaries[i], boundaries[i + 1]);
+                final File part = new File(outputFile.getPath() + ".part" + i);
+                parts[i] = part;
+                job.trackTempFile(part);
+                futures.add(executor.submit(() -> {
+                    FramePipeline pipeline = createFramePipeline(paths, config.width, config.height,
+                        workersPerSegment, job.getMetrics());
+                    try {
+                        encodeFramePlan(job, segment, pipeline, config, encoders, part, spec, null, totalFrames);
+                    } finally {
+                        pipeline.close();
                     }
-                    
-                    encoder.releaseOutputBuffer(outputBufferIndex, false);
-                    
-                    if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                        encodingDone = true;
-                        Log.d(TAG, "✅ Encoding complete");
+                    return null;
+                }));
+            }
+
+            // Wait for every segment so none is still writing when the parts are deleted
+            Exception failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                     }
                 }
             }
-            
-        } finally {
-            if (encoder != null) {
-                try {
-                    encoder.stop();
-                    encoder.release();
-                    Log.d(TAG, "Encoder released");
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing encoder", e);
+            if (failure != null) throw failure;
+            job.getMetrics().setFramesEncoded(totalFrames);
+            job.throwIfCancelled();
+
+            long concatStart = job.getMetrics().begin();
+            MediaRemuxer remuxer = new MediaRemuxer();
+            int videoTrack = remuxer.addTrack(parts[0].getPath(), "video/", 0, Long.MAX_VALUE);
+            if (videoTrack < 0) {
+                throw new Exception("Segment 0 has no video track");
+            }
+            for (int i = 1; i < segmentCount; i++) {
+                if (!remuxer.appendSegment(videoTrack, parts[i].getPath(), plan.startTimeUs(boundaries[i]), Long.MAX_VALUE)) {
+                    Log.w(TAG, "⚠️  Segment " + i + " cannot be joined - falling back to serial encoding");
+                    job.resetProgress();
+                    return false;
                 }
             }
-            if (muxer != null) {
-                try {
-                    muxer.stop();
-                    muxer.release();
-                    Log.d(TAG, "Muxer released");
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing muxer", e);
+            if (audio != null) {
+                addLoopedAudio(remuxer, audio.getProbe(), spec.durationSeconds * 1000000L);
+            }
+            remuxer.writeTo(outputFile);
+            job.getMetrics().end(RenderMetrics.Stage.CONCAT, concatStart);
+            Log.d(TAG, "✅ Joined " + segmentCount + " segments - " + remuxer.getSamplesWritten() + " samples");
+            return true;
+        } finally {
+            executor.shutdownNow();
+            for (File part : parts) {
+                if (part == null) continue;
+                if (part.exists() && !part.delete()) {
+                    Log.w(TAG, "⚠️  Could not delete segment " + part.getName());
                 }
+                job.untrackTempFile(part);
             }
         }
     }
 
-    // durationSeconds is the total requested video duration (seconds).
-    private void generateMultiImageVideo(ReadableArray imagePaths, int durationSeconds, 
-                                        int width, int height, File outputFile) throws Exception {
-        Log.d(TAG, "🎥 Starting multi-image video generation");
-        
+    // Still-image mode only emits sparse frames; transitions and Ken Burns need every frame
+    private FramePlan createFramePlan(RenderSpec spec, VideoEncoderConfig config) {
+        int imageCount = spec.imagePaths.size();
+        if (spec.isStillImage()) {
+            return FramePlan.stillImage(imageCount, spec.durationSeconds, config.frameRate);
+        }
+        return FramePlan.constantRate(imageCount, spec.durationSeconds, config.frameRate);
+    }
+
+    /**
+     * Shared encode loop: feeds the frames described by plan into the video encoder
+     * and drains it into a single MediaMuxer. When audio is given, its track is
+     * added next to the video track and samples are interleaved after each video
+     * sample, so the final file is written in one pass.
+     *
+     * Transitions hold the next image's frame alongside the current one and
+     * composite them in the YUV domain (see TransitionRenderer).
+     *
+     * The encoder is leased from encoders and handed back warm after a clean
+     * end of stream; a flushed encoder does not announce its output format
+     * again, so the muxer is started from the format the lease carries.
+     */
+    private void encodeFramePlan(RenderJob job, FramePlan plan, FramePipeline pipeline, VideoEncoderConfig config,
+                                 EncoderPool encoders, File outputFile, RenderSpec spec,
+                                 AudioSampleSource audio, int progressTotal) throws Exception {
+        RenderMetrics metrics = job.getMetrics();
+        boolean stillImageMode = spec.isStillImage();
+        TransitionRenderer transitions = spec.hasMotion()
+            ? new TransitionRenderer(spec.transition, spec.kenBurns,
+                (int) ((long) spec.transitionMs * config.frameRate / 1000))
+            : null;
+        EncoderPool.Lease lease = null;
         MediaCodec encoder = null;
         MediaMuxer muxer = null;
+        boolean muxerStarted = false;
+        MediaFormat outputFormat = null;
+        boolean outputEOS = false;
         
         try {
-            MediaFormat format = MediaFormat.createVideoFormat(MIME_TYPE, width, height);
-            format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
-            format.setInteger(MediaFormat.KEY_BIT_RATE, VIDEO_BIT_RATE);
-            format.setInteger(MediaFormat.KEY_FRAME_RATE, FRAME_RATE);
-            format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, I_FRAME_INTERVAL);
-            
-            encoder = MediaCodec.createEncoderByType(MIME_TYPE);
-            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
-            encoder.start();
+            lease = encoders.acquire(config);
+            encoder = lease.codec;
             Log.d(TAG, "✅ Encoder started");
             
             muxer = new MediaMuxer(outputFile.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
             
             MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
             int trackIndex = -1;
-            boolean muxerStarted = false;
-            
-            // Compute exact frame distribution so sum(framesPerImage) == FRAME_RATE * durationSeconds
-            int imageCount = imagePaths.size();
-            int totalFrames = FRAME_RATE * durationSeconds;
-            if (totalFrames <= 0) totalFrames = FRAME_RATE; // fallback to 1 second
-
-            int base = totalFrames / imageCount;
-            int rem = totalFrames % imageCount; // distribute the remainder across first images
-
-            int[] framesPerImageArr = new int[imageCount];
-            for (int i = 0; i < imageCount; i++) {
-                framesPerImageArr[i] = base + (i < rem ? 1 : 0);
+            if (lease.outputFormat != null) {
+                // Warm encoder: no INFO_OUTPUT_FORMAT_CHANGED is coming, and the stream must open on a keyframe
+                outputFormat = lease.outputFormat;
+                trackIndex = muxer.addTrack(outputFormat);
+                if (audio != null) {
+                    addAudioTrack(muxer, audio);
+                }
+                muxer.start();
+                muxerStarted = true;
+                requestSyncFrame(encoder);
+                Log.d(TAG, "✅ Muxer started from pooled encoder format, track index: " + trackIndex);
             }
+            int totalFrames = plan.frameCount();
+
+            // Each image is decoded and converted once by the pipeline, then reused for all of its frames
+            boolean planarInput = isPlanarInput(encoder);
+            YuvFrame currentFrame = null;
+            YuvFrame nextFrame = null;   // only held during a transition
+            int currentImageIndex = -1;
 
             long presentationTimeUs = 0;
             int globalFrameIndex = 0;
             boolean inputEOS = false;
-            boolean outputEOS = false;
-
-            Log.d(TAG, "📹 Encoding " + totalFrames + " total frames (distributed across " + imageCount + " images)");
-            Log.d(TAG, "⏱️  Total video duration: " + (totalFrames / (float) FRAME_RATE) + " seconds");
             
             while (!outputEOS) {
+                job.throwIfCancelled();
                 if (!inputEOS) {
+                    long waitStart = metrics.begin();
                     int inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
+                    metrics.end(RenderMetrics.Stage.INPUT_WAIT, waitStart);
                     if (inputBufferIndex >= 0) {
-                        // Determine current image index by walking the framesPerImageArr
-                        int remaining = globalFrameIndex;
-                        int imageIndex = 0;
-                        while (imageIndex < framesPerImageArr.length && remaining >= framesPerImageArr[imageIndex]) {
-                            remaining -= framesPerImageArr[imageIndex];
-                            imageIndex++;
-                        }
-                        int frameInImage = remaining;
-
-                        if (imageIndex >= imagePaths.size()) {
+                        if (globalFrameIndex >= totalFrames) {
                             encoder.queueInputBuffer(inputBufferIndex, 0, 0, presentationTimeUs,
                                 MediaCodec.BUFFER_FLAG_END_OF_STREAM);
                             inputEOS = true;
+                            pipeline.recycle(currentFrame);
+                            pipeline.recycle(nextFrame);
+                            currentFrame = null;
+                            nextFrame = null;
                             Log.d(TAG, "🏁 End of stream signaled");
                         } else {
-                            if (frameInImage == 0) {
-                                String imagePath = cleanFilePath(imagePaths.getString(imageIndex));
-                                Log.d(TAG, "📸 Processing image " + (imageIndex + 1) + "/" + imagePaths.size());
+                            int imageIndex = plan.imageIndexAt(globalFrameIndex);
+                            if (plan.isImageStart(globalFrameIndex)) {
+                                Log.d(TAG, "📸 Processing image " + (imageIndex + 1) + "/" + plan.imageCount());
+                                if (stillImageMode && globalFrameIndex > 0) {
+                                    // Sparse frames only - make sure every image opens on a keyframe
+                                    requestSyncFrame(encoder);
+                                }
                             }
 
-                            byte[] yuvData = getYUVDataForImage(imagePaths, imageIndex, width, height);
-                            if (yuvData != null) {
-                                ByteBuffer inputBuffer = encoder.getInputBuffer(inputBufferIndex);
-                                inputBuffer.clear();
-                                long pts = computePresentationTimeUs(globalFrameIndex);
-
-                                if (inputBuffer.remaining() >= yuvData.length) {
-                                    inputBuffer.put(yuvData);
-                                    encoder.queueInputBuffer(inputBufferIndex, 0, yuvData.length, pts, 0);
-                                } else {
-                                    // chunked write if encoder input buffer is small
-                                    int offset = 0;
-                                    while (offset < yuvData.length) {
-                                        int toWrite = Math.min(inputBuffer.remaining(), yuvData.length - offset);
-                                        inputBuffer.put(yuvData, offset, toWrite);
-                                        encoder.queueInputBuffer(inputBufferIndex, 0, toWrite, pts, 0);
-                                        offset += toWrite;
-                                        inputBufferIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
-                                        if (inputBufferIndex < 0) break;
-                                        inputBuffer = encoder.getInputBuffer(inputBufferIndex);
-                                        inputBuffer.clear();
-                                    }
-                                }
+                            if (imageIndex != currentImageIndex) {
+                                // Timeline moved on - hand the old buffer back so the workers can prefetch
+                                pipeline.recycle(currentFrame);
+                                currentFrame = nextFrame != null ? nextFrame : pipeline.take(imageIndex, job);
+                                nextFrame = null;
+                                currentImageIndex = imageIndex;
+                            }
 
-                                presentationTimeUs = pts;
-                                globalFrameIndex++;
+                            YuvFrame frame = currentFrame;
+                            if (transitions != null) {
+                                int frameInImage = plan.frameInImageAt(globalFrameIndex);
+                                int framesInImage = plan.framesForImage(imageIndex);
+                                // Trailing images can get zero frames when there are more images than frames
+                                boolean hasNext = imageIndex + 1 < plan.imageCount()
+                                    && plan.framesForImage(imageIndex + 1) > 0;
+                                if (nextFrame == null && transitions.inTransition(frameInImage, framesInImage, hasNext)) {
+                                    nextFrame = pipeline.take(imageIndex + 1, job);
+                                }
+                                long transitionStart = metrics.begin();
+                                frame = transitions.render(plan.firstImage() + imageIndex, currentFrame, nextFrame,
+                                    frameInImage, framesInImage);
+                                metrics.end(RenderMetrics.Stage.TRANSITION, transitionStart);
                             }
+
+                            long pts = plan.presentationTimeUsAt(globalFrameIndex);
+                            queueYuvFrame(encoder, inputBufferIndex, frame, pts, planarInput);
+
+                            presentationTimeUs = pts;
+                            globalFrameIndex++;
+                            job.addProgress(1, progressTotal);
                         }
                     }
                 }
                 
+                long drainStart = metrics.begin();
+                boolean wroteVideoSample = false;
                 int outputBufferIndex = encoder.dequeueOutputBuffer(bufferInfo, TIMEOUT_US);
                 
                 switch (outputBufferIndex) {
                     case MediaCodec.INFO_OUTPUT_FORMAT_CHANGED:
-                        MediaFormat newFormat = encoder.getOutputFormat();
-                        trackIndex = muxer.addTrack(newFormat);
+                        if (muxerStarted) {
+                            throw new RuntimeException("Format changed twice");
+                        }
+                        outputFormat = encoder.getOutputFormat();
+                        trackIndex = muxer.addTrack(outputFormat);
+                        if (audio != null) {
+                            addAudioTrack(muxer, audio);
+                        }
                         muxer.start();
                         muxerStarted = true;
-                        Log.d(TAG, "✅ Muxer started with track index: " + trackIndex);
+                        Log.d(TAG, "✅ Muxer started with track index: " + trackIndex
+                            + (audio != null && audio.hasTrack() ? " (+ audio)" : ""));
                         break;
                         
                     case MediaCodec.INFO_TRY_AGAIN_LATER:
@@ -751,6 +1070,7 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
                                 outputBuffer.position(bufferInfo.offset);
                                 outputBuffer.limit(bufferInfo.offset + bufferInfo.size);
                                 muxer.writeSampleData(trackIndex, outputBuffer, bufferInfo);
+                                wroteVideoSample = true;
                             }
                             
                             encoder.releaseOutputBuffer(outputBufferIndex, false);
@@ -762,21 +1082,36 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
                         }
                         break;
                 }
+                metrics.end(RenderMetrics.Stage.DRAIN, drainStart);
+
+                if (wroteVideoSample && audio != null) {
+                    // Keep audio level with the video we just wrote
+                    long audioStart = metrics.begin();
+                    audio.writeUntil(muxer, bufferInfo.presentationTimeUs);
+                    metrics.end(RenderMetrics.Stage.AUDIO_MUX, audioStart);
+                }
+            }
+            metrics.setFramesEncoded(globalFrameIndex);
+
+            if (audio != null && muxerStarted) {
+                long audioStart = metrics.begin();
+                audio.writeRemaining(muxer);
+                metrics.end(RenderMetrics.Stage.AUDIO_MUX, audioStart);
+                Log.d(TAG, "🔊 Audio interleaved - " + audio.getSamplesWritten() + " samples, "
+                    + audio.getLoopCount() + " loop restart(s)");
             }
             
         } finally {
-            if (encoder != null) {
-                try {
-                    encoder.stop();
-                    encoder.release();
-                    Log.d(TAG, "Encoder released");
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing encoder", e);
-                }
+            if (lease != null) {
+                // Only an encoder that reached end of stream is in a state worth reusing
+                encoders.release(lease, outputEOS ? outputFormat : null);
+                Log.d(TAG, "Encoder returned to pool");
             }
             if (muxer != null) {
                 try {
-                    muxer.stop();
+                    if (muxerStarted) {
+                        muxer.stop();
+                    }
                     muxer.release();
                     Log.d(TAG, "Muxer released");
                 } catch (Exception e) {
@@ -786,459 +1121,252 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
         }
     }
 
-    private byte[] getYUVDataForImage(ReadableArray imagePaths, int imageIndex, int width, int height) {
+    // Adds the audio track next to the video track; a rejected format drops audio instead of failing the video
+    private void addAudioTrack(MediaMuxer muxer, AudioSampleSource audio) {
+        MediaFormat audioFormat = audio.getFormat();
+        try {
+            int audioTrackIndex = muxer.addTrack(MediaRemuxer.sanitizeMediaFormat(audioFormat));
+            audio.setMuxerTrackIndex(audioTrackIndex);
+            Log.d(TAG, "✅ Audio track added - index: " + audioTrackIndex);
+        } catch (IllegalStateException iae) {
+            Log.e(TAG, "❌ Failed to add audio track to muxer, dropping audio: " + iae.getMessage());
+            try {
+                Log.e(TAG, "AUDIO FORMAT DUMP:");
+                Log.e(TAG, "  MIME: " + audioFormat.getString(MediaFormat.KEY_MIME));
+                Log.e(TAG, "  Sample rate: " + audioFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE));
+                Log.e(TAG, "  Channels: " + audioFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+            } catch (Exception e) {
+                Log.w(TAG, "Could not log audio format details", e);
+            }
+        }
+    }
+
+    /**
+     * Decoder stage for slideshows: worker threads load, letterbox and convert
+     * upcoming images into recycled frames, each with its own converter scratch.
+     */
+    private FramePipeline createFramePipeline(List<String> imagePaths, final int width, final int height,
+                                              int workers, final RenderMetrics metrics) {
+        final ThreadLocal<YuvConverter> converters = new ThreadLocal<YuvConverter>() {
+            @Override
+            protected YuvConverter initialValue() {
+                return new YuvConverter();
+            }
+        };
+        final String[] paths = imagePaths.toArray(new String[0]);
+        Log.d(TAG, "🧵 Frame pipeline: " + workers + " decode worker(s), " + PIPELINE_FRAME_BUFFERS + " buffers");
+        return new FramePipeline(paths.length, PIPELINE_FRAME_BUFFERS, workers,
+            (imageIndex, out) -> loadYuvFrameForImage(paths[imageIndex], width, height, converters.get(), out, metrics));
+    }
+
+    private void loadYuvFrameForImage(String imagePath, int width, int height,
+                                      YuvConverter converter, YuvFrame out, RenderMetrics metrics) {
         try {
-            String imagePath = cleanFilePath(imagePaths.getString(imageIndex));
-            Bitmap bitmap = loadAndFitBitmap(imagePath, width, height);
+            long decodeStart = metrics.begin();
+            Bitmap bitmap = loadAndFitBitmap(imagePath, width, height, metrics);
+            metrics.end(RenderMetrics.Stage.DECODE, decodeStart);
             if (bitmap == null) {
                 Log.w(TAG, "⚠️  Failed to load image, using black frame: " + imagePath);
-                return createBlackYUVFrame(width, height);
+                out.reset(width, height);
+                out.fillBlack();
+                return;
             }
             
-            byte[] yuvData = convertBitmapToYUV420(bitmap, width, height);
-            bitmap.recycle();
-            return yuvData;
+            long convertStart = metrics.begin();
+            convertBitmapToYUV420(bitmap, converter, out);
+            metrics.end(RenderMetrics.Stage.CONVERT, convertStart);
+            metrics.bitmapReleased(bitmap.getByteCount());
+            bitmapPool.release(bitmap);
             
         } catch (Exception e) {
             Log.e(TAG, "Error getting YUV data for image", e);
-            return createBlackYUVFrame(width, height);
+            out.reset(width, height);
+            out.fillBlack();
         }
     }
 
-    private byte[] createBlackYUVFrame(int width, int height) {
-        byte[] yuv = new byte[width * height * 3 / 2];
-        for (int i = 0; i < width * height; i++) {
-            yuv[i] = 0;
-        }
-        for (int i = width * height; i < yuv.length; i++) {
-            yuv[i] = (byte) 128;
+    /**
+     * Writes a frame into the encoder input slot. Prefers the codec's Image planes
+     * (real strides and plane order for COLOR_FormatYUV420Flexible); falls back to
+     * the flat ByteBuffer laid out as I420 or NV12 per the negotiated input format.
+     */
+    private void queueYuvFrame(MediaCodec encoder, int inputBufferIndex, YuvFrame frame,
+                               long pts, boolean planarInput) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int size = YuvPlanes.packedSize(width, height);
+
+        Image image = encoder.getInputImage(inputBufferIndex);
+        if (image != null) {
+            Image.Plane[] planes = image.getPlanes();
+            frame.writeTo(new YuvPlanes(
+                planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride()));
+        } else {
+            ByteBuffer inputBuffer = encoder.getInputBuffer(inputBufferIndex);
+            inputBuffer.clear();
+            if (inputBuffer.remaining() < size) {
+                throw new IllegalStateException("Encoder input buffer too small: "
+                    + inputBuffer.remaining() + " < " + size);
+            }
+            frame.writeTo(planarInput
+                ? YuvPlanes.i420(inputBuffer, width, height)
+                : YuvPlanes.nv12(inputBuffer, width, height));
         }
-        return yuv;
+        encoder.queueInputBuffer(inputBufferIndex, 0, size, pts, 0);
     }
 
-
-
-
-    // ============================================
-    // UPDATED AUDIO MERGING - Handles both trimming and looping
-    // ============================================
-
-    private void mergeAudioWithVideo(String videoPath, String audioPath, String outputPath, int targetDurationSeconds) throws Exception {
-        Log.d(TAG, "🔀 Merging audio with video");
-        
-        MediaMuxer muxer = null;
-        MediaExtractor videoExtractor = null;
-        MediaExtractor audioExtractor = null;
-        
-        String convertedTempAudioPath = null;
-        // If device API < 18, MediaMuxer is not available / supported reliably.
-        // Avoid attempting to merge audio on very old devices to prevent IllegalStateException.
-        if (Build.VERSION.SDK_INT < 18) {
-            Log.w(TAG, "⚠️  Device API < 18 - MediaMuxer unsupported. Returning video-only output.");
-            // Try to copy videoPath to outputPath and return gracefully
-            try {
-                java.io.File src = new java.io.File(videoPath);
-                java.io.File dst = new java.io.File(outputPath);
-                java.io.FileInputStream fis = new java.io.FileInputStream(src);
-                java.io.FileOutputStream fos = new java.io.FileOutputStream(dst);
-                java.nio.channels.FileChannel in = fis.getChannel();
-                java.nio.channels.FileChannel out = fos.getChannel();
-                in.transferTo(0, in.size(), out);
-                in.close();
-                out.close();
-                fis.close();
-                fos.close();
-                Log.d(TAG, "✅ Copied video to output (no audio) for API<18 device");
-                return;
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Failed to copy video for API<18 fallback: " + e.getMessage());
-                // Fall through to regular path and let the existing logic handle/throw
-            }
-        }
+    private boolean isPlanarInput(MediaCodec encoder) {
         try {
-            muxer = new MediaMuxer(outputPath, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
-
-            // Setup video extractor
-            videoExtractor = new MediaExtractor();
-            videoExtractor.setDataSource(videoPath);
-
-            int videoTrackIndex = -1;
-            MediaFormat videoFormat = null;
-
-            for (int i = 0; i < videoExtractor.getTrackCount(); i++) {
-                MediaFormat format = videoExtractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                if (mime != null && mime.startsWith("video/")) {
-                    videoTrackIndex = i;
-                    videoFormat = format;
-                    Log.d(TAG, "✅ Found video track: " + mime);
-                    break;
-                }
-            }
-
-            if (videoTrackIndex == -1) {
-                throw new Exception("No video track found");
-            }
-
-            // Setup audio extractor
-            audioExtractor = new MediaExtractor();
-            audioExtractor.setDataSource(audioPath);
-
-            int audioTrackIndex = -1;
-            MediaFormat audioFormat = null;
-
-            for (int i = 0; i < audioExtractor.getTrackCount(); i++) {
-                MediaFormat format = audioExtractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                if (mime != null && mime.startsWith("audio/")) {
-                    audioTrackIndex = i;
-                    audioFormat = format;
-                    Log.d(TAG, "✅ Found audio track: " + mime);
-                    break;
-                }
-            }
-
-            boolean audioAvailable = true;
-            if (audioTrackIndex == -1 || audioFormat == null) {
-                Log.w(TAG, "⚠️  No audio track found in audio file - proceeding without audio");
-                audioAvailable = false;
-            }
-
-            // If input audio is MP3, convert to AAC first to avoid muxer/format issues
-            if (audioAvailable) {
-                String audioMime = audioFormat.getString(MediaFormat.KEY_MIME);
-                if (audioMime != null && (audioMime.equalsIgnoreCase("audio/mpeg") || audioMime.contains("mpeg") || audioMime.contains("mp3"))) {
-                    Log.d(TAG, "🔁 Detected MP3 audio, attempting to convert to AAC to avoid muxer issues...");
-                    try {
-                        String converted = convertMp3ToAac(audioPath);
-                        if (converted != null) {
-                            convertedTempAudioPath = converted;
-                            Log.d(TAG, "🔁 MP3 converted to AAC at: " + converted);
-                            // release and re-create extractor for converted file
-                            audioExtractor.release();
-                            audioExtractor = new MediaExtractor();
-                            audioExtractor.setDataSource(converted);
-
-                            // re-find track
-                            audioTrackIndex = -1;
-                            audioFormat = null;
-                            for (int i = 0; i < audioExtractor.getTrackCount(); i++) {
-                                MediaFormat format = audioExtractor.getTrackFormat(i);
-                                String mime = format.getString(MediaFormat.KEY_MIME);
-                                if (mime != null && mime.startsWith("audio/")) {
-                                    audioTrackIndex = i;
-                                    audioFormat = format;
-                                    Log.d(TAG, "✅ Found converted audio track: " + mime);
-                                    break;
-                                }
-                            }
-                            if (audioTrackIndex == -1 || audioFormat == null) {
-                                Log.w(TAG, "⚠️  Converted audio file has no audio track - dropping audio");
-                                audioAvailable = false;
-                            }
-                        } else {
-                            Log.w(TAG, "⚠️  Conversion returned null path - dropping audio");
-                            audioAvailable = false;
-                        }
-                    } catch (Exception convEx) {
-                        Log.e(TAG, "Error converting MP3 to AAC, dropping audio: " + convEx.getMessage());
-                        audioAvailable = false;
-                    }
-                }
-            }
-
-            // Add video track first (must be added before muxer.start())
-            int muxerVideoTrackIndex = -1;
-            Integer muxerAudioTrackIndex = null;
-            try {
-                // Sanitize video format before adding to avoid IllegalStateException
-                MediaFormat sanitizedVideoFormat = sanitizeMediaFormat(videoFormat);
-                muxerVideoTrackIndex = muxer.addTrack(sanitizedVideoFormat);
-                Log.d(TAG, "✅ Video track added - index: " + muxerVideoTrackIndex);
-            } catch (IllegalStateException iae) {
-                Log.e(TAG, "❌ Failed to add VIDEO track to muxer: " + iae.getMessage());
-                
-                // Log detailed format information
-                try {
-                    if (videoFormat != null) {
-                        Log.e(TAG, "VIDEO FORMAT DUMP:");
-                        Log.e(TAG, "  MIME: " + videoFormat.getString(MediaFormat.KEY_MIME));
-                        Log.e(TAG, "  Width: " + videoFormat.getInteger(MediaFormat.KEY_WIDTH));
-                        Log.e(TAG, "  Height: " + videoFormat.getInteger(MediaFormat.KEY_HEIGHT));
-                        if (videoFormat.containsKey(MediaFormat.KEY_BIT_RATE)) {
-                            Log.e(TAG, "  Bitrate: " + videoFormat.getInteger(MediaFormat.KEY_BIT_RATE));
-                        }
-                        if (videoFormat.containsKey(MediaFormat.KEY_FRAME_RATE)) {
-                            Log.e(TAG, "  Frame rate: " + videoFormat.getInteger(MediaFormat.KEY_FRAME_RATE));
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not log format details", e);
-                }
-                
-                // Release and fallback to video-only copy
-                try {
-                    muxer.release();
-                } catch (Exception ex) {
-                    Log.w(TAG, "Error releasing muxer during fallback", ex);
-                }
-                
-                // Copy video file as-is
-                try {
-                    java.io.File src = new java.io.File(videoPath);
-                    java.io.File dst = new java.io.File(outputPath);
-                    java.io.FileInputStream fis = new java.io.FileInputStream(src);
-                    java.io.FileOutputStream fos = new java.io.FileOutputStream(dst);
-                    java.nio.channels.FileChannel in = fis.getChannel();
-                    java.nio.channels.FileChannel out = fos.getChannel();
-                    in.transferTo(0, in.size(), out);
-                    in.close(); out.close(); fis.close(); fos.close();
-                    Log.d(TAG, "✅ Fallback: copied video to output (no audio merge)");
-                    return;
-                } catch (Exception ex) {
-                    Log.e(TAG, "Fallback copy failed", ex);
-                    throw new Exception("Failed to add video track to muxer and fallback copy failed: " + ex.getMessage());
-                }
-            }
-
-            // Try to add audio track if available and looks compatible
-            if (audioAvailable && audioFormat != null) {
-                try {
-                    // Sanitize audio format before adding to avoid IllegalStateException
-                    MediaFormat sanitizedAudioFormat = sanitizeMediaFormat(audioFormat);
-                    muxerAudioTrackIndex = muxer.addTrack(sanitizedAudioFormat);
-                    Log.d(TAG, "✅ Audio track added - index: " + muxerAudioTrackIndex);
-                } catch (IllegalStateException iae) {
-                    Log.e(TAG, "❌ Failed to add audio track to muxer, dropping audio: " + iae.getMessage());
-                    
-                    // Log audio format details
-                    try {
-                        if (audioFormat != null) {
-                            Log.e(TAG, "AUDIO FORMAT DUMP:");
-                            Log.e(TAG, "  MIME: " + audioFormat.getString(MediaFormat.KEY_MIME));
-                            Log.e(TAG, "  Sample rate: " + audioFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE));
-                            Log.e(TAG, "  Channels: " + audioFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
-                        }
-                    } catch (Exception e) {
-                        Log.w(TAG, "Could not log audio format details", e);
-                    }
-                    
-                    audioAvailable = false;
-                    muxerAudioTrackIndex = null;
-                }
-            }
-
-            // Start muxer after adding available tracks
-            muxer.start();
-            Log.d(TAG, "✅ Muxer started");
-
-            // Select tracks
-            videoExtractor.selectTrack(videoTrackIndex);
-            if (audioAvailable && audioExtractor != null && audioTrackIndex >= 0) {
-                audioExtractor.selectTrack(audioTrackIndex);
-            }
-
-            ByteBuffer buffer = ByteBuffer.allocate(512 * 1024);
-            MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
-
-            // Copy video samples
-            Log.d(TAG, "📹 Copying video samples...");
-            videoExtractor.seekTo(0, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
-            int videoSampleCount = 0;
-            long videoDurationUs = 0;
-
-            while (true) {
-                buffer.clear();
-                int sampleSize = videoExtractor.readSampleData(buffer, 0);
-                if (sampleSize < 0) break;
-
-                long sampleTime = videoExtractor.getSampleTime();
-                videoDurationUs = Math.max(videoDurationUs, sampleTime);
-                bufferInfo.set(0, sampleSize, sampleTime, videoExtractor.getSampleFlags());
-                muxer.writeSampleData(muxerVideoTrackIndex, buffer, bufferInfo);
-                videoSampleCount++;
-                videoExtractor.advance();
-            }
-            Log.d(TAG, "✅ Video copied - " + videoSampleCount + " samples");
-            Log.d(TAG, "⏱️  Video duration: " + (videoDurationUs / 1000000.0) + " seconds");
-
-            // Copy audio samples (trimmed to video duration) if audio is available
-            if (audioAvailable && muxerAudioTrackIndex != null) {
-                Log.d(TAG, "🔊 Copying audio samples (capped to video duration)...");
-                audioExtractor.seekTo(0, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
-                int audioSampleCount = 0;
-                long targetDurationUs = targetDurationSeconds * 1000000L;
-
-                while (true) {
-                    buffer.clear();
-                    int sampleSize = audioExtractor.readSampleData(buffer, 0);
-                    if (sampleSize < 0) break;
-
-                    long audioSampleTime = audioExtractor.getSampleTime();
-
-                    // Only include audio up to target duration
-                    if (audioSampleTime <= Math.min(videoDurationUs, targetDurationUs)) {
-                        bufferInfo.set(0, sampleSize, audioSampleTime, audioExtractor.getSampleFlags());
-                        muxer.writeSampleData(muxerAudioTrackIndex, buffer, bufferInfo);
-                        audioSampleCount++;
-                    } else {
-                        Log.d(TAG, "✂️  Trimming audio beyond target duration");
-                        break;
-                    }
-
-                    audioExtractor.advance();
-                }
-                Log.d(TAG, "✅ Audio copied - " + audioSampleCount + " samples");
-            } else {
-                Log.d(TAG, "🔇 Audio not available or was dropped - final file will be video-only");
-            }
-
-            Log.d(TAG, "✅ Audio-video merge completed successfully");
-
+            MediaFormat inputFormat = encoder.getInputFormat();
+            return inputFormat.containsKey(MediaFormat.KEY_COLOR_FORMAT)
+                && inputFormat.getInteger(MediaFormat.KEY_COLOR_FORMAT)
+                    == MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Planar;
         } catch (Exception e) {
-            Log.e(TAG, "💥 Error in mergeAudioWithVideo: " + e.getMessage());
-            throw e;
-        } finally {
-            if (muxer != null) {
-                try {
-                    muxer.stop();
-                    muxer.release();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing muxer", e);
-                }
-            }
-            if (videoExtractor != null) {
-                videoExtractor.release();
-            }
-            if (audioExtractor != null) {
-                audioExtractor.release();
-            }
-
-            // Clean up any temporary converted audio file we created
-            if (convertedTempAudioPath != null) {
-                try {
-                    File conv = new File(convertedTempAudioPath);
-                    if (conv.exists()) {
-                        boolean deleted = conv.delete();
-                        Log.d(TAG, "🗑️  Deleted temp converted audio: " + deleted + " -> " + convertedTempAudioPath);
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not delete temporary converted audio", e);
-                }
-            }
+            return false;
         }
     }
 
+
     // ============================================
     // UTILITY METHODS
     // ============================================
 
-    // Key fix: Sanitize MediaFormat before adding to muxer to avoid IllegalStateException
-    private MediaFormat sanitizeMediaFormat(MediaFormat format) {
-        try {
-            String mime = format.getString(MediaFormat.KEY_MIME);
-            
-            if (mime.startsWith("video/")) {
-                int width = format.getInteger(MediaFormat.KEY_WIDTH);
-                int height = format.getInteger(MediaFormat.KEY_HEIGHT);
-                MediaFormat newFormat = MediaFormat.createVideoFormat(mime, width, height);
-                
-                // Copy only safe, essential keys
-                if (format.containsKey(MediaFormat.KEY_COLOR_FORMAT)) {
-                    newFormat.setInteger(MediaFormat.KEY_COLOR_FORMAT, 
-                        format.getInteger(MediaFormat.KEY_COLOR_FORMAT));
-                }
-                if (format.containsKey(MediaFormat.KEY_BIT_RATE)) {
-                    newFormat.setInteger(MediaFormat.KEY_BIT_RATE, 
-                        format.getInteger(MediaFormat.KEY_BIT_RATE));
-                }
-                if (format.containsKey(MediaFormat.KEY_FRAME_RATE)) {
-                    newFormat.setInteger(MediaFormat.KEY_FRAME_RATE, 
-                        format.getInteger(MediaFormat.KEY_FRAME_RATE));
-                }
-                if (format.containsKey(MediaFormat.KEY_I_FRAME_INTERVAL)) {
-                    newFormat.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 
-                        format.getInteger(MediaFormat.KEY_I_FRAME_INTERVAL));
-                }
-                
-                // Copy CSD buffers (codec-specific data)
-                for (int i = 0; i < 3; i++) {
-                    String csdKey = "csd-" + i;
-                    if (format.containsKey(csdKey)) {
-                        newFormat.setByteBuffer(csdKey, format.getByteBuffer(csdKey));
-                    }
-                }
-                
-                return newFormat;
-                
-            } else if (mime.startsWith("audio/")) {
-                int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
-                int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
-                MediaFormat newFormat = MediaFormat.createAudioFormat(mime, sampleRate, channelCount);
-                
-                if (format.containsKey(MediaFormat.KEY_BIT_RATE)) {
-                    newFormat.setInteger(MediaFormat.KEY_BIT_RATE, 
-                        format.getInteger(MediaFormat.KEY_BIT_RATE));
-                }
-                if (format.containsKey(MediaFormat.KEY_AAC_PROFILE)) {
-                    newFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, 
-                        format.getInteger(MediaFormat.KEY_AAC_PROFILE));
-                }
-                if (format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)) {
-                    newFormat.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 
-                        format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE));
-                }
-                
-                // Copy CSD buffers
-                for (int i = 0; i < 3; i++) {
-                    String csdKey = "csd-" + i;
-                    if (format.containsKey(csdKey)) {
-                        newFormat.setByteBuffer(csdKey, format.getByteBuffer(csdKey));
-                    }
-                }
-                
-                return newFormat;
-            }
-            
-            return format;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error sanitizing format", e);
-            return format;
-        }
-    }
-
     private String cleanFilePath(String filePath) {
         if (filePath == null) return null;
         return filePath.replace("file://", "").replace("%20", " ").trim();
     }
 
-    private long computePresentationTimeUs(int frameIndex) {
-        return frameIndex * 1000000L / FRAME_RATE;
+    // Resolved on the bridge thread - ReadableArray must not be read from job or worker threads
+    private List<String> cleanFilePaths(ReadableArray filePaths) {
+        List<String> paths = new ArrayList<>(filePaths.size());
+        for (int i = 0; i < filePaths.size(); i++) {
+            paths.add(cleanFilePath(filePaths.getString(i)));
+        }
+        return paths;
+    }
+
+    private void emitProgress(RenderJob job, int completedFrames, int totalFrames) {
+        WritableMap params = Arguments.createMap();
+        params.putString("jobId", job.getId());
+        params.putInt("completedFrames", completedFrames);
+        params.putInt("totalFrames", totalFrames);
+        params.putDouble("progress", (double) completedFrames / totalFrames);
+        emit(EVENT_PROGRESS, params);
     }
 
-    private int[] calculateVideoDimensions(int originalWidth, int originalHeight) {
-        int videoWidth, videoHeight;
-        float aspect = (float) originalWidth / originalHeight;
+    private void requestSyncFrame(MediaCodec encoder) {
+        Bundle params = new Bundle();
+        params.putInt(MediaCodec.PARAMETER_KEY_REQUEST_SYNC_FRAME, 0);
+        encoder.setParameters(params);
+    }
 
-        if (originalHeight > originalWidth) {
-            videoHeight = 1280;
-            videoWidth = Math.round(videoHeight * aspect);
-        } else {
-            videoWidth = 1280;
-            videoHeight = Math.round(videoWidth / aspect);
+    /**
+     * Plans size and bitrate for the content (see BitratePlanner), then fits
+     * them to the encoder picked from the probed device capabilities.
+     */
+    private VideoEncoderConfig buildEncoderConfig(RenderSpec spec, int sourceWidth, int sourceHeight,
+                                                  float complexity, int audioBitRate) {
+        EncoderCapabilities.Codec codec = EncoderCapabilities.get(getReactApplicationContext()).select(spec.videoMime);
+        boolean hevc = codec != null && EncoderCapabilities.MIME_HEVC.equals(codec.mime);
+
+        // Previews decode with a far larger inSampleSize since everything downstream sizes from these dims
+        int frameRate = spec.preview ? PREVIEW_FRAME_RATE : FRAME_RATE;
+        int[] contentDims = spec.preview
+            ? VideoDimensions.fitPreview(sourceWidth, sourceHeight)
+            : VideoDimensions.fit(sourceWidth, sourceHeight, BitratePlanner.longEdgeFor(complexity, sourceWidth, sourceHeight));
+        // Still frames arrive about once a second; budgeting bits for frameRate would starve each one
+        int encoderFrameRate = spec.isStillImage()
+            ? FramePlan.stillImage(spec.imagePaths.size(), spec.durationSeconds, frameRate).averageFrameRate()
+            : frameRate;
+        BitratePlanner.Plan plan = BitratePlanner.plan(complexity, contentDims, encoderFrameRate, spec.durationSeconds,
+            spec.preview ? 0 : spec.targetSizeBytes, audioBitRate, hevc);
+        Log.d(TAG, "🧮 Bitrate plan: " + plan);
+
+        if (codec == null) {
+            // Nothing probed (unusual) - keep the platform default AVC encoder
+            return new VideoEncoderConfig(EncoderCapabilities.MIME_AVC, null, plan.width, plan.height,
+                plan.bitRate, -1, frameRate, encoderFrameRate, I_FRAME_INTERVAL,
+                MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
         }
+        int[] dims = codec.fitSize(plan.width, plan.height);
+        int bitRate = codec.clampBitrate(plan.bitRate);
+        // A size target needs the encoder to hold its rate; otherwise let VBR save bits on easy frames
+        int bitrateMode = -1;
+        if (plan.sizeCapped && codec.cbr) {
+            bitrateMode = MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CBR;
+        } else if (codec.vbr) {
+            bitrateMode = MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_VBR;
+        }
+        return new VideoEncoderConfig(codec.mime, codec.name, dims[0], dims[1], bitRate, bitrateMode,
+            frameRate, encoderFrameRate, I_FRAME_INTERVAL, codec.colorFormat);
+    }
 
-        videoWidth = (videoWidth / 2) * 2;
-        videoHeight = (videoHeight / 2) * 2;
-        
-        if (videoWidth < 480) videoWidth = 480;
-        if (videoHeight < 480) videoHeight = 480;
-        
-        return new int[]{videoWidth, videoHeight};
+    /**
+     * Mean complexity of up to COMPLEXITY_SAMPLE_IMAGES images, spread over the
+     * slideshow. Each is decoded as a small thumbnail, so this costs a few ms.
+     */
+    private float estimateComplexity(List<String> imagePaths) {
+        int samples = Math.min(COMPLEXITY_SAMPLE_IMAGES, imagePaths.size());
+        float total = 0;
+        int measured = 0;
+        int[] pixels = new int[0];
+        for (int i = 0; i < samples; i++) {
+            String path = imagePaths.get(i * imagePaths.size() / samples);
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, opts);
+            if (opts.outWidth <= 0 || opts.outHeight <= 0) continue;
+            opts.inJustDecodeBounds = false;
+            opts.inSampleSize = calculateInSampleSize(opts, COMPLEXITY_THUMBNAIL_EDGE, COMPLEXITY_THUMBNAIL_EDGE);
+            Bitmap thumbnail = BitmapFactory.decodeFile(path, opts);
+            if (thumbnail == null) continue;
+            int w = thumbnail.getWidth();
+            int h = thumbnail.getHeight();
+            if (pixels.length < w * h) pixels = new int[w * h];
+            thumbnail.getPixels(pixels, 0, w, 0, 0, w, h);
+            thumbnail.recycle();
+            total += BitratePlanner.complexity(pixels, w, h);
+            measured++;
+        }
+        // Unknown content - assume an average photo
+        float complexity = measured > 0 ? total / measured : 0.5f;
+        Log.d(TAG, "🔬 Content complexity: " + complexity + " (" + measured + " image(s) sampled)");
+        return complexity;
+    }
+
+    private int getAudioBitRate(MediaFormat format) {
+        return format.containsKey(MediaFormat.KEY_BIT_RATE)
+            ? format.getInteger(MediaFormat.KEY_BIT_RATE)
+            : DEFAULT_AUDIO_BIT_RATE;
+    }
+
+    private String getVideoMimeOption(ReadableMap options) {
+        if (options == null || !options.hasKey("codec") || options.isNull("codec")) {
+            return EncoderCapabilities.MIME_AVC;
+        }
+        String codec = options.getString("codec");
+        return "hevc".equalsIgnoreCase(codec) || "h265".equalsIgnoreCase(codec)
+            ? EncoderCapabilities.MIME_HEVC
+            : EncoderCapabilities.MIME_AVC;
+    }
+
+    private boolean getBooleanOption(ReadableMap options, String key, boolean defaultValue) {
+        if (options == null || !options.hasKey(key) || options.isNull(key)) return defaultValue;
+        return options.getBoolean(key);
     }
 
-    private Bitmap loadAndFitBitmap(String path, int targetW, int targetH) {
+    /**
+     * Decodes path letterboxed into a targetW x targetH bitmap taken from
+     * bitmapPool - hand it back with bitmapPool.release(). The decoder samples
+     * down by a power of two and then density-scales to the fitted size itself,
+     * writing into a pooled bitmap, so an image whose aspect ratio matches the
+     * target costs one frame. Other images are copied 1:1 into a pooled
+     * letterbox frame. Every buffer, including the decoder's transient sampled
+     * one, is reported to metrics so a render's peak bitmap memory is known.
+     */
+    private Bitmap loadAndFitBitmap(String path, int targetW, int targetH, RenderMetrics metrics) {
         try {
             BitmapFactory.Options opts = new BitmapFactory.Options();
             opts.inJustDecodeBounds = true;
@@ -1250,34 +1378,65 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
             }
             
             float scale = Math.min((float) targetW / opts.outWidth, (float) targetH / opts.outHeight);
-            int scaledW = Math.round(opts.outWidth * scale);
-            int scaledH = Math.round(opts.outHeight * scale);
+            int scaledW = Math.max(1, Math.round(opts.outWidth * scale));
+            int scaledH = Math.max(1, Math.round(opts.outHeight * scale));
             
             opts.inJustDecodeBounds = false;
             opts.inSampleSize = calculateInSampleSize(opts, scaledW, scaledH);
             opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
-            
-            Bitmap src = BitmapFactory.decodeFile(path, opts);
+            opts.inMutable = true;
+            // Rounded up: decoders differ in how they round sampled sizes
+            int sampledW = (opts.outWidth + opts.inSampleSize - 1) / opts.inSampleSize;
+            int sampledH = (opts.outHeight + opts.inSampleSize - 1) / opts.inSampleSize;
+            // The decoder scales the sampled image by inTargetDensity / inDensity
+            boolean densityScaled = sampledW != scaledW;
+            opts.inScaled = densityScaled;
+            opts.inDensity = sampledW;
+            opts.inTargetDensity = scaledW;
+
+            // One spare row and column absorb the decoder rounding the other way
+            Bitmap reuse = bitmapPool.obtain(scaledW + 1, scaledH + 1);
+            opts.inBitmap = reuse;
+            // A density-scaled decode goes through a temporary sampled bitmap
+            long transientBytes = densityScaled ? (long) sampledW * sampledH * 4 : 0;
+            metrics.bitmapAllocated(reuse.getAllocationByteCount() + transientBytes);
+
+            Bitmap src;
+            try {
+                src = BitmapFactory.decodeFile(path, opts);
+            } catch (IllegalArgumentException e) {
+                // Some formats cannot decode into an existing bitmap
+                opts.inBitmap = null;
+                src = BitmapFactory.decodeFile(path, opts);
+            }
+            metrics.bitmapReleased(reuse.getAllocationByteCount() + transientBytes);
+            if (src != reuse) {
+                bitmapPool.release(reuse);
+            }
             if (src == null) {
                 Log.e(TAG, "Failed to decode bitmap: " + path);
                 return null;
             }
+            metrics.bitmapAllocated(src.getByteCount());
 
-            if (src.getWidth() != scaledW || src.getHeight() != scaledH) {
-                Bitmap scaled = Bitmap.createScaledBitmap(src, scaledW, scaledH, true);
-                src.recycle();
-                src = scaled;
+            if (src.getWidth() == targetW && src.getHeight() == targetH) {
+                return src;
             }
 
-            Bitmap output = Bitmap.createBitmap(targetW, targetH, Bitmap.Config.ARGB_8888);
-            android.graphics.Canvas canvas = new android.graphics.Canvas(output);
+            Bitmap output = bitmapPool.obtain(targetW, targetH);
+            metrics.bitmapAllocated(output.getByteCount());
+            Canvas canvas = letterboxCanvas.get();
+            canvas.setBitmap(output);
             canvas.drawColor(0xFF000000);
             
-            int left = (targetW - scaledW) / 2;
-            int top = (targetH - scaledH) / 2;
+            // Already at its final size - a 1px rounding overshoot is cropped
+            int left = (targetW - src.getWidth()) / 2;
+            int top = (targetH - src.getHeight()) / 2;
             canvas.drawBitmap(src, left, top, null);
+            canvas.setBitmap(null);
             
-            src.recycle();
+            metrics.bitmapReleased(src.getByteCount());
+            bitmapPool.release(src);
             return output;
             
         } catch (Exception e) {
@@ -1302,264 +1461,47 @@ public class VideoMakerModule extends ReactContextBaseJavaModule {
         return inSampleSize;
     }
 
-    private byte[] convertBitmapToYUV420(Bitmap bitmap, int width, int height) {
-        int[] argb = new int[width * height];
+    private void convertBitmapToYUV420(Bitmap bitmap, YuvConverter converter, YuvFrame out) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] argb = converter.obtainPixelBuffer(width, height);
         bitmap.getPixels(argb, 0, width, 0, 0, width, height);
-        
-        byte[] yuv = new byte[width * height * 3 / 2];
-        
-        // Y plane
-        for (int j = 0; j < height; j++) {
-            for (int i = 0; i < width; i++) {
-                int color = argb[j * width + i];
-                int R = (color >> 16) & 0xff;
-                int G = (color >> 8) & 0xff;
-                int B = color & 0xff;
-                
-                int Y = ((66 * R + 129 * G + 25 * B + 128) >> 8) + 16;
-                yuv[j * width + i] = (byte) clamp(Y, 0, 255);
-            }
-        }
-        
-        // UV planes (NV12 format)
-        int uvIndex = width * height;
-        for (int j = 0; j < height / 2; j++) {
-            for (int i = 0; i < width / 2; i++) {
-                int index = (j * 2) * width + (i * 2);
-                int color = argb[index];
-                int R = (color >> 16) & 0xff;
-                int G = (color >> 8) & 0xff;
-                int B = color & 0xff;
-                
-                int U = ((-38 * R - 74 * G + 112 * B + 128) >> 8) + 128;
-                int V = ((112 * R - 94 * G - 18 * B + 128) >> 8) + 128;
-                
-                yuv[uvIndex++] = (byte) clamp(U, 0, 255);
-                yuv[uvIndex++] = (byte) clamp(V, 0, 255);
-            }
-        }
-        
-        return yuv;
-    }
-
-    private int clamp(int value, int min, int max) {
-        return Math.max(min, Math.min(max, value));
-    }
-
-    private File createOutputFile() throws Exception {
-        File dir = new File(getReactApplicationContext().getFilesDir(), "videos");
-        if (!dir.exists()) {
-            if (!dir.mkdirs()) {
-                throw new Exception("Failed to create videos directory");
-            }
-        }
-        return new File(dir, "video_" + System.currentTimeMillis() + ".mp4");
+        converter.convert(argb, width, height, out);
     }
 
     // ============================================
     // MP3 → AAC CONVERSION (decode -> encode -> mux)
-    // Robust conversion to avoid writing MP3 samples into an AAC track
-    // Requires API 18+ (MediaMuxer)
+    // Robust conversion to avoid writing MP3 samples into an AAC track.
+    // Results are cached by source content + target params, so re-rendering
+    // with the same song skips transcoding entirely.
     // ============================================
-    private String convertMp3ToAac(String mp3Path) throws Exception {
-        if (Build.VERSION.SDK_INT < 18) {
-            throw new UnsupportedOperationException("Audio conversion requires API 18+");
+    private String convertMp3ToAac(AudioProbe mp3) throws Exception {
+        TranscodeCache cache = getTranscodeCache();
+        String key = TranscodeCache.keyFor(new File(mp3.path), AacTranscoder.targetParams());
+
+        File cached = cache.get(key);
+        if (cached != null) {
+            Log.d(TAG, "♻️  Transcode cache hit: " + cached.getName());
+            return cached.getAbsolutePath();
         }
 
-        MediaExtractor extractor = new MediaExtractor();
-        MediaCodec decoder = null;
-        MediaCodec encoder = null;
-        MediaMuxer muxer = null;
-
+        File temp = cache.newTempFile(key);
         try {
-            extractor.setDataSource(mp3Path);
-
-            int audioTrackIndex = -1;
-            MediaFormat mp3Format = null;
-
-            for (int i = 0; i < extractor.getTrackCount(); i++) {
-                MediaFormat f = extractor.getTrackFormat(i);
-                String mime = f.getString(MediaFormat.KEY_MIME);
-                if (mime != null && mime.startsWith("audio/")) {
-                    audioTrackIndex = i;
-                    mp3Format = f;
-                    break;
-                }
-            }
-
-            if (audioTrackIndex < 0 || mp3Format == null) {
-                throw new Exception("No audio track found in MP3 file");
-            }
-
-            String mp3Mime = mp3Format.getString(MediaFormat.KEY_MIME);
-            extractor.selectTrack(audioTrackIndex);
-
-            // Create decoder for the source (MP3)
-            decoder = MediaCodec.createDecoderByType(mp3Mime);
-            decoder.configure(mp3Format, null, null, 0);
-            decoder.start();
-
-            // Prepare AAC encoder with same sample rate / channel count
-            int sampleRate = mp3Format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
-            int channelCount = mp3Format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
-
-            MediaFormat aacFormat = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC, sampleRate, channelCount);
-            aacFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
-            aacFormat.setInteger(MediaFormat.KEY_BIT_RATE, 128000);
-            aacFormat.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16384);
-
-            encoder = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
-            encoder.configure(aacFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
-            encoder.start();
-
-            File outputAac = new File(getReactApplicationContext().getCacheDir(), "converted_" + System.currentTimeMillis() + ".m4a");
-            muxer = new MediaMuxer(outputAac.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
-
-            MediaCodec.BufferInfo decInfo = new MediaCodec.BufferInfo();
-            MediaCodec.BufferInfo encInfo = new MediaCodec.BufferInfo();
-
-            boolean extractorDone = false;
-            boolean decoderDone = false;
-            boolean encoderDone = false;
-            boolean muxerStarted = false;
-            int muxerTrackIndex = -1;
-
-            final int timeoutUs = TIMEOUT_US;
-
-            while (!encoderDone) {
-                // Feed extractor -> decoder
-                if (!extractorDone) {
-                    int inIndex = decoder.dequeueInputBuffer(timeoutUs);
-                    if (inIndex >= 0) {
-                        ByteBuffer dst = decoder.getInputBuffer(inIndex);
-                        dst.clear();
-                        int sampleSize = extractor.readSampleData(dst, 0);
-                        if (sampleSize < 0) {
-                            decoder.queueInputBuffer(inIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
-                            extractorDone = true;
-                        } else {
-                            long sampleTime = extractor.getSampleTime();
-                            decoder.queueInputBuffer(inIndex, 0, sampleSize, sampleTime, 0);
-                            extractor.advance();
-                        }
-                    }
-                }
-
-                // Drain decoder -> push decoded PCM into encoder input
-                int decOutIndex = decoder.dequeueOutputBuffer(decInfo, timeoutUs);
-                if (decOutIndex >= 0) {
-                    ByteBuffer decodedBuf = decoder.getOutputBuffer(decOutIndex);
-                    if ((decInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-                        decoder.releaseOutputBuffer(decOutIndex, false);
-                    } else {
-                        int decodedSize = decInfo.size;
-                        byte[] pcm = new byte[decodedSize];
-                        decodedBuf.position(decInfo.offset);
-                        decodedBuf.limit(decInfo.offset + decInfo.size);
-                        decodedBuf.get(pcm);
-
-                        // Try to queue into encoder
-                        boolean queued = false;
-                        while (!queued) {
-                            int encInIndex = encoder.dequeueInputBuffer(timeoutUs);
-                            if (encInIndex >= 0) {
-                                ByteBuffer encInBuf = encoder.getInputBuffer(encInIndex);
-                                encInBuf.clear();
-                                encInBuf.put(pcm, 0, pcm.length);
-                                encoder.queueInputBuffer(encInIndex, 0, pcm.length, decInfo.presentationTimeUs, 0);
-                                queued = true;
-                            } else {
-                                // Drain encoder output to make room
-                                int encOutIdx = encoder.dequeueOutputBuffer(encInfo, timeoutUs);
-                                if (encOutIdx == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
-                                    MediaFormat newFormat = encoder.getOutputFormat();
-                                    try {
-                                        MediaFormat sanitizedFormat = sanitizeMediaFormat(newFormat);
-                                        muxerTrackIndex = muxer.addTrack(sanitizedFormat);
-                                        muxer.start();
-                                        muxerStarted = true;
-                                    } catch (IllegalStateException iae) {
-                                        Log.e(TAG, "❌ Failed to add converted audio track to muxer: " + iae.getMessage());
-                                        try { muxer.release(); } catch (Exception ignored) {}
-                                        return null;
-                                    }
-                                } else if (encOutIdx >= 0) {
-                                    ByteBuffer encodedBuf = encoder.getOutputBuffer(encOutIdx);
-                                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-                                        encInfo.size = 0;
-                                    }
-                                    if (encInfo.size > 0 && muxerStarted) {
-                                        encodedBuf.position(encInfo.offset);
-                                        encodedBuf.limit(encInfo.offset + encInfo.size);
-                                        muxer.writeSampleData(muxerTrackIndex, encodedBuf, encInfo);
-                                    }
-                                    encoder.releaseOutputBuffer(encOutIdx, false);
-                                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                                        encoderDone = true;
-                                    }
-                                } else {
-                                    // nothing to do, continue waiting
-                                }
-                            }
-                        }
-
-                        decoder.releaseOutputBuffer(decOutIndex, false);
-                        if ((decInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                            decoderDone = true;
-                        }
-                    }
-                } else if (decOutIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
-                    // decoder format changed — ignore for audio
-                }
-
-                // Drain encoder output
-                int encOutIndex = encoder.dequeueOutputBuffer(encInfo, timeoutUs);
-                if (encOutIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
-                    MediaFormat newFormat = encoder.getOutputFormat();
-                    if (!muxerStarted) {
-                        try {
-                            MediaFormat sanitizedFormat = sanitizeMediaFormat(newFormat);
-                            muxerTrackIndex = muxer.addTrack(sanitizedFormat);
-                            muxer.start();
-                            muxerStarted = true;
-                        } catch (IllegalStateException iae) {
-                            Log.e(TAG, "❌ Failed to add converted audio track to muxer: " + iae.getMessage());
-                            try { muxer.release(); } catch (Exception ignored) {}
-                            return null;
-                        }
-                    }
-                } else if (encOutIndex >= 0) {
-                    ByteBuffer encodedBuf = encoder.getOutputBuffer(encOutIndex);
-                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-                        encInfo.size = 0;
-                    }
-                    if (encInfo.size > 0 && muxerStarted) {
-                        encodedBuf.position(encInfo.offset);
-                        encodedBuf.limit(encInfo.offset + encInfo.size);
-                        muxer.writeSampleData(muxerTrackIndex, encodedBuf, encInfo);
-                    }
-                    encoder.releaseOutputBuffer(encOutIndex, false);
-                    if ((encInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                        encoderDone = true;
-                    }
-                }
-
-                // If decoder is done but encoder not yet signaled EOS, signal it by queueing empty buffer
-                if (decoderDone && !encoderDone) {
-                    int encInIndex = encoder.dequeueInputBuffer(timeoutUs);
-                    if (encInIndex >= 0) {
-                        encoder.queueInputBuffer(encInIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
-                    }
-                }
+            new AacTranscoder().transcode(mp3, temp);
+            File entry = cache.commit(temp, key);
+            Log.d(TAG, "🔁 MP3 converted to AAC at: " + entry.getAbsolutePath());
+            return entry.getAbsolutePath();
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
             }
+        }
+    }
 
-            return outputAac.getAbsolutePath();
-
-        } finally {
-            try { if (extractor != null) extractor.release(); } catch (Exception ignored) {}
-            try { if (decoder != null) { decoder.stop(); decoder.release(); } } catch (Exception ignored) {}
-            try { if (encoder != null) { encoder.stop(); encoder.release(); } } catch (Exception ignored) {}
-            try { if (muxer != null) { muxer.stop(); muxer.release(); } } catch (Exception ignored) {}
+    private synchronized TranscodeCache getTranscodeCache() {
+        if (transcodeCache == null) {
+            transcodeCache = new TranscodeCache(storage.getTranscodeDir(), TRANSCODE_CACHE_MAX_BYTES);
         }
+        return transcodeCache;
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+// android/videokernels/src/jmh/java/com/pdfimagetoolbox/FrameKernelBenchmark.java
+package com.pdfimagetoolbox;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kernels working on already converted I420 frames: the black filler frame
+ * and the transition blends. "megabytes" is MB/s of YUV output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameKernelBenchmark {
+
+    @Param({"480p", "720p", "1080p"})
+    public String resolution;
+
+    private int frameBytes;
+    private final YuvFrame black = new YuvFrame();
+    private final YuvFrame a = new YuvFrame();
+    private final YuvFrame b = new YuvFrame();
+    private final YuvFrame out = new YuvFrame();
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bandwidth {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        int width;
+        int height;
+        switch (resolution) {
+            case "480p":
+                width = 854;
+                height = 480;
+                break;
+            case "720p":
+                width = 1280;
+                height = 720;
+                break;
+            default:
+                width = 1920;
+                height = 1080;
+                break;
+        }
+        frameBytes = YuvPlanes.packedSize(width, height);
+
+        Random random = new Random(42);
+        int[] argb = new int[width * height];
+        YuvConverter converter = new YuvConverter();
+        for (YuvFrame frame : new YuvFrame[] {a, b}) {
+            for (int i = 0; i < argb.length; i++) {
+                argb[i] = 0xFF000000 | random.nextInt(0x1000000);
+            }
+            converter.convert(argb, width, height, frame);
+        }
+        black.reset(width, height);
+        out.reset(width, height);
+    }
+
+    @Benchmark
+    public YuvFrame fillBlack(Bandwidth bandwidth) {
+        black.fillBlack();
+        bandwidth.megabytes += frameBytes / 1e6;
+        return black;
+    }
+
+    @Benchmark
+    public YuvFrame crossfade(Bandwidth bandwidth) {
+        TransitionRenderer.crossfade(a, b, 128, out);
+        bandwidth.megabytes += frameBytes / 1e6;
+        return out;
+    }
+
+    @Benchmark
+    public YuvFrame slide(Bandwidth bandwidth) {
+        TransitionRenderer.slide(a, b, 96, out);
+        bandwidth.megabytes += frameBytes / 1e6;
+        return out;
+    }
+}
@@ -0,0 +1,65 @@
+// android/videokernels/src/jmh/java/com/pdfimagetoolbox/FramePlanBenchmark.java
+package com.pdfimagetoolbox;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeline construction for large slideshows: frame distribution, the
+ * constant-rate and still-image plans, and segment splitting. All of it runs
+ * on the job thread before the first frame is encoded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FramePlanBenchmark {
+
+    private static final int FRAME_RATE = 30;
+
+    @Param({"100", "1000", "5000"})
+    public int imageCount;
+
+    // Three seconds per image
+    private int durationSeconds;
+    private FramePlan plan;
+
+    @Setup
+    public void setUp() {
+        durationSeconds = imageCount * 3;
+        plan = FramePlan.constantRate(imageCount, durationSeconds, FRAME_RATE);
+    }
+
+    @Benchmark
+    public int[] distributeFrames() {
+        return FramePlan.distributeFrames(imageCount, durationSeconds, FRAME_RATE);
+    }
+
+    @Benchmark
+    public FramePlan constantRate() {
+        return FramePlan.constantRate(imageCount, durationSeconds, FRAME_RATE);
+    }
+
+    @Benchmark
+    public FramePlan stillImage() {
+        return FramePlan.stillImage(imageCount, durationSeconds, FRAME_RATE);
+    }
+
+    @Benchmark
+    public int[] segmentBoundaries() {
+        return plan.segmentBoundaries(4, 5000000L);
+    }
+}
@@ -0,0 +1,93 @@
+// android/videokernels/src/jmh/java/com/pdfimagetoolbox/YuvConversionBenchmark.java
+package com.pdfimagetoolbox;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ARGB -> I420 conversion at the slideshow output sizes. Besides frames/s the
+ * benchmark reports "megabytes", MB/s of ARGB input, so results compare
+ * across resolutions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class YuvConversionBenchmark {
+
+    @Param({"480p", "720p", "1080p"})
+    public String resolution;
+
+    // "serial" runs the kernel on the calling thread, "parallel" stripes rows over the common pool
+    @Param({"serial", "parallel"})
+    public String threading;
+
+    private int width;
+    private int height;
+    private int[] argb;
+    private YuvConverter converter;
+    private ForkJoinPool serialPool;
+    private final YuvFrame frame = new YuvFrame();
+
+    /** Megabytes processed, reported by JMH as a rate next to the score. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bandwidth {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        switch (resolution) {
+            case "480p":
+                width = 854;
+                height = 480;
+                break;
+            case "720p":
+                width = 1280;
+                height = 720;
+                break;
+            default:
+                width = 1920;
+                height = 1080;
+                break;
+        }
+        // Random pixels: a flat frame would flatter the lookup tables' cache behaviour
+        Random random = new Random(42);
+        argb = new int[width * height];
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        serialPool = new ForkJoinPool(1);
+        converter = "serial".equals(threading) ? new YuvConverter(serialPool) : new YuvConverter();
+    }
+
+    @Benchmark
+    public YuvFrame convertArgbToI420(Bandwidth bandwidth) {
+        converter.convert(argb, width, height, frame);
+        bandwidth.megabytes += argb.length * 4 / 1e6;
+        return frame;
+    }
+}
@@ -0,0 +1,147 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/BitratePlanner.java
+package com.pdfimagetoolbox;
+
+/**
+ * Picks output resolution and bitrate per render from how detailed the images
+ * are, instead of a fixed 2 Mbps at 1280 px.
+ *
+ * Complexity (0..1) mixes luma-histogram entropy with edge density measured on
+ * small thumbnails: flat graphics and screenshots score low, textured photos
+ * high. Bitrate follows a bits-per-pixel budget interpolated between the two.
+ *
+ * With a target output size the budget becomes a cap: the bitrate is derived
+ * from the size left after audio, and the resolution drops when that bitrate
+ * would otherwise starve every pixel.
+ */
+public final class BitratePlanner {
+
+    public static final int DEFAULT_LONG_EDGE = 1280;
+    static final int DETAILED_LONG_EDGE = 1920;
+    static final int MIN_LONG_EDGE = 480;
+
+    // Bits per pixel per frame at complexity 0 and 1 (AVC)
+    static final float MIN_BPP = 0.035f;
+    static final float MAX_BPP = 0.11f;
+    // Below this a size-capped render trades resolution for bits
+    static final float FLOOR_BPP = 0.03f;
+    static final float HEVC_EFFICIENCY = 0.6f;
+    static final int MIN_BIT_RATE = 300000;
+    static final int MAX_BIT_RATE = 12000000;
+    // Lowest rate a size target may push the video to; below this it is unwatchable
+    static final int MIN_CAPPED_BIT_RATE = 100000;
+    // MP4 container and index overhead reserved from a size target
+    static final float CONTAINER_OVERHEAD = 0.03f;
+
+    private static final int EDGE_THRESHOLD = 24;
+    private static final int HISTOGRAM_BINS = 64;
+
+    /** Resolution and rate control chosen for one render. */
+    public static final class Plan {
+        public final int width;
+        public final int height;
+        public final int bitRate;
+        public final boolean sizeCapped;   // prefer CBR so the size target holds
+        public final float complexity;
+
+        Plan(int width, int height, int bitRate, boolean sizeCapped, float complexity) {
+            this.width = width;
+            this.height = height;
+            this.bitRate = bitRate;
+            this.sizeCapped = sizeCapped;
+            this.complexity = complexity;
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + " @ " + (bitRate / 1000) + " kbps, complexity "
+                + String.format(java.util.Locale.US, "%.2f", complexity) + (sizeCapped ? " (size capped)" : "");
+        }
+    }
+
+    private BitratePlanner() {
+    }
+
+    /**
+     * Complexity of one ARGB image in 0..1: half normalised luma entropy, half
+     * the share of pixels on a visible edge. Meant for thumbnails (~128 px).
+     */
+    public static float complexity(int[] argb, int width, int height) {
+        if (width < 2 || height < 2) return 0.5f;
+        int[] histogram = new int[HISTOGRAM_BINS];
+        int[] luma = new int[width * height];
+        for (int i = 0; i < luma.length; i++) {
+            int c = argb[i];
+            int l = (77 * ((c >> 16) & 0xFF) + 150 * ((c >> 8) & 0xFF) + 29 * (c & 0xFF)) >> 8;
+            luma[i] = l;
+            histogram[l * HISTOGRAM_BINS >> 8]++;
+        }
+
+        double entropy = 0;
+        for (int count : histogram) {
+            if (count == 0) continue;
+            double p = (double) count / luma.length;
+            entropy -= p * Math.log(p);
+        }
+        double entropyNorm = entropy / Math.log(HISTOGRAM_BINS);
+
+        int edges = 0;
+        for (int y = 0; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 0; x < width - 1; x++) {
+                int l = luma[row + x];
+                int gradient = Math.abs(luma[row + x + 1] - l) + Math.abs(luma[row + width + x] - l);
+                if (gradient > EDGE_THRESHOLD) edges++;
+            }
+        }
+        // A quarter of pixels on edges is already very busy content
+        double edgeNorm = Math.min(1.0, edges / ((width - 1) * (height - 1) * 0.25));
+
+        return (float) Math.max(0, Math.min(1, 0.5 * entropyNorm + 0.5 * edgeNorm));
+    }
+
+    /** Long edge for the content: detailed, large sources earn 1080p-class output. */
+    public static int longEdgeFor(float complexity, int sourceWidth, int sourceHeight) {
+        int sourceLongEdge = Math.max(sourceWidth, sourceHeight);
+        return complexity > 0.6f && sourceLongEdge >= DETAILED_LONG_EDGE ? DETAILED_LONG_EDGE : DEFAULT_LONG_EDGE;
+    }
+
+    /**
+     * @param dims            output size chosen for the content (even values)
+     * @param targetBytes     desired maximum file size, or 0 for none
+     * @param audioBitRate    bits/s the audio track will take (0 when silent)
+     */
+    public static Plan plan(float complexity, int[] dims, int frameRate, int durationSeconds,
+                            long targetBytes, int audioBitRate, boolean hevc) {
+        int width = dims[0];
+        int height = dims[1];
+        float efficiency = hevc ? HEVC_EFFICIENCY : 1f;
+        float bpp = (MIN_BPP + (MAX_BPP - MIN_BPP) * complexity) * efficiency;
+        int bitRate = clamp((long) (bpp * width * height * frameRate));
+
+        if (targetBytes <= 0 || durationSeconds <= 0) {
+            return new Plan(width, height, bitRate, false, complexity);
+        }
+
+        long budgetBits = (long) (targetBytes * 8 * (1 - CONTAINER_OVERHEAD)) - (long) audioBitRate * durationSeconds;
+        int cappedRate = (int) Math.max(MIN_CAPPED_BIT_RATE, Math.min(Integer.MAX_VALUE, budgetBits / durationSeconds));
+        if (cappedRate >= bitRate) {
+            // Quality target already fits
+            return new Plan(width, height, bitRate, false, complexity);
+        }
+
+        // Shrink until the capped rate gives at least FLOOR_BPP per pixel
+        float floorBpp = FLOOR_BPP * efficiency;
+        double scale = Math.sqrt(cappedRate / (floorBpp * width * height * frameRate));
+        if (scale < 1) {
+            double minScale = (double) MIN_LONG_EDGE / Math.max(width, height);
+            scale = Math.max(scale, Math.min(1, minScale));
+            width = Math.max(2, ((int) (width * scale)) & ~1);
+            height = Math.max(2, ((int) (height * scale)) & ~1);
+        }
+        return new Plan(width, height, cappedRate, true, complexity);
+    }
+
+    private static int clamp(long bitRate) {
+        return (int) Math.max(MIN_BIT_RATE, Math.min(MAX_BIT_RATE, bitRate));
+    }
+}
@@ -0,0 +1,276 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/FramePlan.java
+package com.pdfimagetoolbox;
+
+/**
+ * Timeline of encoder input frames for a slideshow: which image each frame shows
+ * and its presentation time.
+ *
+ * CONSTANT_RATE emits FRAME_RATE frames per second (the classic behaviour).
+ * STILL_IMAGE emits one frame when an image appears plus sparse repeat frames,
+ * so a 60 second still video encodes ~60 frames instead of 1800.
+ */
+public final class FramePlan {
+
+    // Gap between repeated frames in still-image mode. Keeps players seekable
+    // without pushing identical pictures through the encoder 30 times a second.
+    public static final long STILL_REPEAT_INTERVAL_US = 1000000L;
+
+    private final int[] imageIndices;
+    private final long[] presentationTimesUs;
+    private final boolean[] imageStarts;
+    private final int[] framesInImage;     // per frame: position within its image
+    private final int[] framesPerImage;    // per image: frames emitted for it
+    private final int imageCount;
+    private final int firstImage;          // index of image 0 in the full plan (slices only)
+    private final long durationUs;
+
+    private FramePlan(int[] imageIndices, long[] presentationTimesUs, boolean[] imageStarts,
+                      int[] framesInImage, int[] framesPerImage, int imageCount, long durationUs) {
+        this(imageIndices, presentationTimesUs, imageStarts, framesInImage, framesPerImage, imageCount, 0, durationUs);
+    }
+
+    private FramePlan(int[] imageIndices, long[] presentationTimesUs, boolean[] imageStarts,
+                      int[] framesInImage, int[] framesPerImage, int imageCount, int firstImage, long durationUs) {
+        this.imageIndices = imageIndices;
+        this.presentationTimesUs = presentationTimesUs;
+        this.imageStarts = imageStarts;
+        this.framesInImage = framesInImage;
+        this.framesPerImage = framesPerImage;
+        this.imageCount = imageCount;
+        this.firstImage = firstImage;
+        this.durationUs = durationUs;
+    }
+
+    /**
+     * Splits FRAME_RATE * durationSeconds frames across the images so that
+     * sum(framesPerImage) == total, giving the remainder to the first images.
+     */
+    public static int[] distributeFrames(int imageCount, int durationSeconds, int frameRate) {
+        int totalFrames = frameRate * durationSeconds;
+        if (totalFrames <= 0) totalFrames = frameRate; // fallback to 1 second
+
+        int base = totalFrames / imageCount;
+        int rem = totalFrames % imageCount;
+
+        int[] framesPerImage = new int[imageCount];
+        for (int i = 0; i < imageCount; i++) {
+            framesPerImage[i] = base + (i < rem ? 1 : 0);
+        }
+        return framesPerImage;
+    }
+
+    public static FramePlan constantRate(int imageCount, int durationSeconds, int frameRate) {
+        int[] framesPerImage = distributeFrames(imageCount, durationSeconds, frameRate);
+        int total = 0;
+        for (int n : framesPerImage) total += n;
+
+        int[] indices = new int[total];
+        long[] pts = new long[total];
+        boolean[] starts = new boolean[total];
+        int[] positions = new int[total];
+
+        int frame = 0;
+        for (int image = 0; image < imageCount; image++) {
+            for (int k = 0; k < framesPerImage[image]; k++) {
+                indices[frame] = image;
+                pts[frame] = presentationTimeUs(frame, frameRate);
+                starts[frame] = k == 0;
+                positions[frame] = k;
+                frame++;
+            }
+        }
+        return new FramePlan(indices, pts, starts, positions, framesPerImage, imageCount,
+            presentationTimeUs(total, frameRate));
+    }
+
+    public static FramePlan stillImage(int imageCount, int durationSeconds, int frameRate) {
+        int[] framesPerImage = distributeFrames(imageCount, durationSeconds, frameRate);
+        long frameDurationUs = presentationTimeUs(1, frameRate);
+
+        // Upper bound: one frame per repeat interval per image, plus start and tail frames
+        int capacity = 0;
+        for (int n : framesPerImage) {
+            long spanUs = presentationTimeUs(n, frameRate);
+            capacity += (int) (spanUs / STILL_REPEAT_INTERVAL_US) + 2;
+        }
+
+        int[] indices = new int[capacity];
+        long[] pts = new long[capacity];
+        boolean[] starts = new boolean[capacity];
+        int[] positions = new int[capacity];
+        int[] emittedPerImage = new int[imageCount];
+
+        int frame = 0;
+        int startFrame = 0;
+        for (int image = 0; image < imageCount; image++) {
+            if (framesPerImage[image] == 0) continue;
+            int firstFrame = frame;
+            long startUs = presentationTimeUs(startFrame, frameRate);
+            long endUs = presentationTimeUs(startFrame + framesPerImage[image], frameRate);
+
+            for (long t = startUs; t < endUs; t += STILL_REPEAT_INTERVAL_US) {
+                indices[frame] = image;
+                pts[frame] = t;
+                starts[frame] = t == startUs;
+                positions[frame] = frame - firstFrame;
+                frame++;
+            }
+
+            // The last image needs a tail frame so the track lasts the full duration
+            long tailUs = endUs - frameDurationUs;
+            boolean lastImage = image == imageCount - 1;
+            if (lastImage && tailUs > pts[frame - 1]) {
+                indices[frame] = image;
+                pts[frame] = tailUs;
+                starts[frame] = false;
+                positions[frame] = frame - firstFrame;
+                frame++;
+            }
+            emittedPerImage[image] = frame - firstFrame;
+            startFrame += framesPerImage[image];
+        }
+
+        return new FramePlan(copyOf(indices, frame), copyOf(pts, frame), copyOf(starts, frame),
+            copyOf(positions, frame), emittedPerImage, imageCount, presentationTimeUs(startFrame, frameRate));
+    }
+
+    public static long presentationTimeUs(int frameIndex, int frameRate) {
+        return frameIndex * 1000000L / frameRate;
+    }
+
+    public int frameCount() {
+        return imageIndices.length;
+    }
+
+    public int imageCount() {
+        return imageCount;
+    }
+
+    public int imageIndexAt(int frame) {
+        return imageIndices[frame];
+    }
+
+    public long presentationTimeUsAt(int frame) {
+        return presentationTimesUs[frame];
+    }
+
+    /** True for the first frame of each image - a good place for a keyframe. */
+    public boolean isImageStart(int frame) {
+        return imageStarts[frame];
+    }
+
+    /** Index of this frame among the frames of its image (0 at the image start). */
+    public int frameInImageAt(int frame) {
+        return framesInImage[frame];
+    }
+
+    /** How many frames the plan emits for the given image. */
+    public int framesForImage(int imageIndex) {
+        return framesPerImage[imageIndex];
+    }
+
+    public long durationUs() {
+        return durationUs;
+    }
+
+    /**
+     * Frames per second actually emitted, rounded (at least 1). A still-image
+     * plan's is far below the timeline rate; the encoder should be told this
+     * one so rate control spreads the bitrate over the frames it really gets.
+     */
+    public int averageFrameRate() {
+        if (durationUs <= 0) return 1;
+        return (int) Math.max(1, Math.round(frameCount() * 1000000.0 / durationUs));
+    }
+
+    /** Index in the full timeline of this plan's image 0; non-zero only for slices. */
+    public int firstImage() {
+        return firstImage;
+    }
+
+    /**
+     * Cuts the timeline on image boundaries into at most maxSegments runs with
+     * roughly equal frame counts, none shorter than minSegmentUs.
+     *
+     * @return the first image of each run followed by imageCount, e.g. {0, 4, 9, 12}
+     */
+    public int[] segmentBoundaries(int maxSegments, long minSegmentUs) {
+        int segments = (int) Math.min(maxSegments, minSegmentUs > 0 ? durationUs / minSegmentUs : maxSegments);
+        int[] boundaries = new int[Math.max(1, segments) + 1];
+        int count = 1;   // boundaries[0] == 0
+        int total = frameCount();
+        int lastCut = 0;
+        int previousStart = 0;
+        for (int frame = 1; frame < total && count < segments; frame++) {
+            if (!imageStarts[frame]) continue;
+            long target = (long) total * count / segments;
+            if (frame >= target) {
+                // Cut at whichever image start lies closer to the even split
+                int cut = previousStart > lastCut && target - previousStart < frame - target ? previousStart : frame;
+                boundaries[count++] = imageIndices[cut];
+                lastCut = cut;
+            }
+            previousStart = frame;
+        }
+        boundaries[count++] = imageCount;
+        int[] out = new int[count];
+        System.arraycopy(boundaries, 0, out, 0, count);
+        return out;
+    }
+
+    /**
+     * Frames of images [fromImage, toImage) as a plan of its own: image indices
+     * and presentation times start at 0, so it can be encoded into a separate
+     * file and placed back at startTimeUs(fromImage).
+     */
+    public FramePlan slice(int fromImage, int toImage) {
+        int from = 0;
+        while (from < imageIndices.length && imageIndices[from] < fromImage) from++;
+        int to = from;
+        while (to < imageIndices.length && imageIndices[to] < toImage) to++;
+
+        long startUs = startTimeUs(fromImage);
+        long endUs = to < imageIndices.length ? presentationTimesUs[to] : durationUs;
+        int length = to - from;
+        int[] indices = new int[length];
+        long[] pts = new long[length];
+        boolean[] starts = new boolean[length];
+        int[] positions = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = imageIndices[from + i] - fromImage;
+            pts[i] = presentationTimesUs[from + i] - startUs;
+            starts[i] = imageStarts[from + i];
+            positions[i] = framesInImage[from + i];
+        }
+        int[] perImage = new int[toImage - fromImage];
+        System.arraycopy(framesPerImage, fromImage, perImage, 0, perImage.length);
+        return new FramePlan(indices, pts, starts, positions, perImage, perImage.length,
+            firstImage + fromImage, endUs - startUs);
+    }
+
+    /** Presentation time of the first frame at or after the start of image. */
+    public long startTimeUs(int image) {
+        for (int frame = 0; frame < imageIndices.length; frame++) {
+            if (imageIndices[frame] >= image) return presentationTimesUs[frame];
+        }
+        return durationUs;
+    }
+
+    private static int[] copyOf(int[] src, int length) {
+        int[] out = new int[length];
+        System.arraycopy(src, 0, out, 0, length);
+        return out;
+    }
+
+    private static long[] copyOf(long[] src, int length) {
+        long[] out = new long[length];
+        System.arraycopy(src, 0, out, 0, length);
+        return out;
+    }
+
+    private static boolean[] copyOf(boolean[] src, int length) {
+        boolean[] out = new boolean[length];
+        System.arraycopy(src, 0, out, 0, length);
+        return out;
+    }
+}
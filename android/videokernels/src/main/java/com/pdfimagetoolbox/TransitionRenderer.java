@@ -0,0 +1,187 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/TransitionRenderer.java
+package com.pdfimagetoolbox;
+
+/**
+ * Slideshow transitions computed directly on converted I420 frames, so a
+ * transition frame never goes back through Canvas + ARGB -> YUV conversion.
+ *
+ * - CROSSFADE: per-byte 8-bit fixed-point blend of the two frames
+ * - SLIDE: the next image pushes the current one out to the left (row copies)
+ * - Ken Burns: slow zoom/pan of each image, bilinear in 16.16 fixed point
+ *
+ * All scratch frames and lookup tables are owned by the instance and only
+ * grow, so rendering a frame allocates nothing. Not thread-safe: one renderer
+ * per encode loop.
+ */
+public final class TransitionRenderer {
+
+    public enum Type { NONE, CROSSFADE, SLIDE }
+
+    // Ken Burns zooms each image from 100% to 100% + KEN_BURNS_ZOOM over its duration
+    private static final float KEN_BURNS_ZOOM = 0.12f;
+    private static final int ONE_16 = 1 << 16;
+
+    private final Type type;
+    private final boolean kenBurns;
+    private final int transitionFrames;
+
+    private final YuvFrame current = new YuvFrame();
+    private final YuvFrame next = new YuvFrame();
+    private final YuvFrame out = new YuvFrame();
+    private int[] colIndex = new int[0];
+    private int[] colFrac = new int[0];
+
+    public TransitionRenderer(Type type, boolean kenBurns, int transitionFrames) {
+        this.type = type;
+        this.kenBurns = kenBurns;
+        this.transitionFrames = Math.max(1, transitionFrames);
+    }
+
+    public boolean isActive() {
+        return type != Type.NONE || kenBurns;
+    }
+
+    /** True while frameInImage falls in the window where the next image blends in. */
+    public boolean inTransition(int frameInImage, int framesInImage, boolean hasNextImage) {
+        return type != Type.NONE && hasNextImage && frameInImage >= framesInImage - windowFor(framesInImage);
+    }
+
+    /**
+     * Produces the picture for one output frame.
+     *
+     * @param currentFrame  converted frame of the image on screen
+     * @param nextFrame     converted frame of the following image, or null when
+     *                      not in a transition window
+     * @return currentFrame itself when no effect applies, otherwise an internal
+     *         frame that stays valid until the next call
+     */
+    public YuvFrame render(int imageIndex, YuvFrame currentFrame, YuvFrame nextFrame,
+                           int frameInImage, int framesInImage) {
+        YuvFrame a = currentFrame;
+        if (kenBurns) {
+            kenBurns(currentFrame, imageIndex, zoomProgress(frameInImage, framesInImage), current);
+            a = current;
+        }
+        if (nextFrame == null || !inTransition(frameInImage, framesInImage, true)) {
+            return a;
+        }
+
+        YuvFrame b = nextFrame;
+        if (kenBurns) {
+            kenBurns(nextFrame, imageIndex + 1, 0, next);
+            b = next;
+        }
+
+        int window = windowFor(framesInImage);
+        int step = frameInImage - (framesInImage - window) + 1;   // 1..window
+        int alpha = step * 256 / (window + 1);                     // never fully 0 or 256
+        out.reset(a.width, a.height);
+        if (type == Type.SLIDE) {
+            slide(a, b, alpha, out);
+        } else {
+            crossfade(a, b, alpha, out);
+        }
+        return out;
+    }
+
+    // Short images get a proportionally shorter transition so they still show on their own
+    private int windowFor(int framesInImage) {
+        return Math.min(transitionFrames, framesInImage / 2);
+    }
+
+    private static float zoomProgress(int frameInImage, int framesInImage) {
+        return framesInImage > 1 ? (float) frameInImage / (framesInImage - 1) : 0f;
+    }
+
+    // ============================================
+    // KERNELS
+    // ============================================
+
+    /** out = a + (b - a) * alpha / 256 on every plane. */
+    static void crossfade(YuvFrame a, YuvFrame b, int alpha, YuvFrame out) {
+        int ySize = a.width * a.height;
+        int cSize = (a.width / 2) * (a.height / 2);
+        blendPlane(a.y, b.y, out.y, ySize, alpha);
+        blendPlane(a.u, b.u, out.u, cSize, alpha);
+        blendPlane(a.v, b.v, out.v, cSize, alpha);
+    }
+
+    private static void blendPlane(byte[] a, byte[] b, byte[] out, int length, int alpha) {
+        for (int i = 0; i < length; i++) {
+            int pa = a[i] & 0xFF;
+            out[i] = (byte) (pa + ((((b[i] & 0xFF) - pa) * alpha) >> 8));
+        }
+    }
+
+    /** b enters from the right by alpha/256 of the width, pushing a out to the left. */
+    static void slide(YuvFrame a, YuvFrame b, int alpha, YuvFrame out) {
+        int width = a.width;
+        int height = a.height;
+        int offset = ((width * alpha) >> 8) & ~1;   // even so chroma stays aligned
+        slidePlane(a.y, b.y, out.y, width, height, offset);
+        slidePlane(a.u, b.u, out.u, width / 2, height / 2, offset / 2);
+        slidePlane(a.v, b.v, out.v, width / 2, height / 2, offset / 2);
+    }
+
+    private static void slidePlane(byte[] a, byte[] b, byte[] out, int width, int height, int offset) {
+        int keep = width - offset;
+        for (int row = 0, base = 0; row < height; row++, base += width) {
+            System.arraycopy(a, base + offset, out, base, keep);
+            System.arraycopy(b, base, out, base + keep, offset);
+        }
+    }
+
+    /**
+     * Crops a window of 1 / (1 + zoom * progress) of the frame and scales it
+     * back to full size. The pan direction rotates with imageIndex so
+     * consecutive images drift differently.
+     */
+    private void kenBurns(YuvFrame src, int imageIndex, float progress, YuvFrame dst) {
+        dst.reset(src.width, src.height);
+        int scale16 = (int) (ONE_16 / (1f + KEN_BURNS_ZOOM * progress)); // crop size / frame size
+        // Window origin as a fraction of the free space; corners alternate per image
+        int corner = imageIndex & 3;
+        float panX = (corner & 1) == 0 ? 0.5f - 0.5f * progress : 0.5f + 0.5f * progress;
+        float panY = (corner & 2) == 0 ? 0.5f - 0.3f * progress : 0.5f + 0.3f * progress;
+
+        zoomPlane(src.y, dst.y, src.width, src.height, scale16, panX, panY);
+        zoomPlane(src.u, dst.u, src.width / 2, src.height / 2, scale16, panX, panY);
+        zoomPlane(src.v, dst.v, src.width / 2, src.height / 2, scale16, panX, panY);
+    }
+
+    private void zoomPlane(byte[] src, byte[] dst, int width, int height, int scale16, float panX, float panY) {
+        if (scale16 >= ONE_16) {
+            System.arraycopy(src, 0, dst, 0, width * height);
+            return;
+        }
+        // 16.16 source position of output pixel x is originX + x * scale16
+        int originX = (int) ((width - ((long) width * scale16 >> 16) - 1) * panX * ONE_16);
+        int originY = (int) ((height - ((long) height * scale16 >> 16) - 1) * panY * ONE_16);
+        if (originX < 0) originX = 0;
+        if (originY < 0) originY = 0;
+
+        if (colIndex.length < width) {
+            colIndex = new int[width];
+            colFrac = new int[width];
+        }
+        for (int x = 0; x < width; x++) {
+            int sx = originX + x * scale16;
+            colIndex[x] = Math.min(sx >> 16, width - 2);
+            colFrac[x] = (sx >> 8) & 0xFF;
+        }
+
+        for (int y = 0, outBase = 0; y < height; y++, outBase += width) {
+            int sy = originY + y * scale16;
+            int row0 = Math.min(sy >> 16, height - 2) * width;
+            int row1 = row0 + width;
+            int fy = (sy >> 8) & 0xFF;
+            for (int x = 0; x < width; x++) {
+                int x0 = colIndex[x];
+                int fx = colFrac[x];
+                int top = (src[row0 + x0] & 0xFF) * (256 - fx) + (src[row0 + x0 + 1] & 0xFF) * fx;
+                int bottom = (src[row1 + x0] & 0xFF) * (256 - fx) + (src[row1 + x0 + 1] & 0xFF) * fx;
+                dst[outBase + x] = (byte) ((top * (256 - fy) + bottom * fy + 32768) >> 16);
+            }
+        }
+    }
+}
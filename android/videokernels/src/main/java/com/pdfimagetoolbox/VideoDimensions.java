@@ -0,0 +1,52 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/VideoDimensions.java
+package com.pdfimagetoolbox;
+
+/**
+ * Output frame size for a source image: aspect ratio kept, the long edge
+ * scaled to a target, both sides even (4:2:0 chroma) and at least a minimum
+ * edge - MIN_EDGE for final renders, PREVIEW_MIN_EDGE for previews.
+ */
+public final class VideoDimensions {
+
+    static final int MIN_EDGE = 480;
+
+    // Preview renders: small, so they encode in a fraction of the full time
+    public static final int PREVIEW_LONG_EDGE = 360;
+    // Only guards against degenerate strips - MIN_EDGE would push previews past PREVIEW_LONG_EDGE
+    static final int PREVIEW_MIN_EDGE = 128;
+
+    private VideoDimensions() {
+    }
+
+    /** @return {width, height} */
+    public static int[] fit(int sourceWidth, int sourceHeight, int longEdge) {
+        return fit(sourceWidth, sourceHeight, longEdge, MIN_EDGE);
+    }
+
+    /** Frame size of a preview render. @return {width, height} */
+    public static int[] fitPreview(int sourceWidth, int sourceHeight) {
+        return fit(sourceWidth, sourceHeight, PREVIEW_LONG_EDGE, PREVIEW_MIN_EDGE);
+    }
+
+    /** @return {width, height} */
+    public static int[] fit(int sourceWidth, int sourceHeight, int longEdge, int minEdge) {
+        int videoWidth, videoHeight;
+        float aspect = (float) sourceWidth / sourceHeight;
+
+        if (sourceHeight > sourceWidth) {
+            videoHeight = longEdge;
+            videoWidth = Math.round(videoHeight * aspect);
+        } else {
+            videoWidth = longEdge;
+            videoHeight = Math.round(videoWidth / aspect);
+        }
+
+        videoWidth = (videoWidth / 2) * 2;
+        videoHeight = (videoHeight / 2) * 2;
+
+        if (videoWidth < minEdge) videoWidth = minEdge;
+        if (videoHeight < minEdge) videoHeight = minEdge;
+
+        return new int[]{videoWidth, videoHeight};
+    }
+}
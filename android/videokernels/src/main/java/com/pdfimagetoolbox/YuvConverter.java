@@ -0,0 +1,228 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/YuvConverter.java
+package com.pdfimagetoolbox;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ARGB_8888 → YUV 4:2:0 (BT.601 studio swing) converter.
+ *
+ * - Per-channel coefficient tables replace the three multiplies per channel.
+ * - Rows are striped across a ForkJoinPool; each stripe covers an even number of
+ *   rows so chroma rows never straddle two tasks.
+ * - Output goes either into a reusable YuvFrame or straight into the encoder's
+ *   planes (YuvPlanes), so no per-frame byte[] is allocated. The row scratch
+ *   used for YuvPlanes belongs to each worker thread and only grows.
+ *
+ * No Android dependencies - can be unit tested and benchmarked on a desktop JVM.
+ * An instance is not thread-safe for concurrent convert() calls; use one per encode.
+ */
+public final class YuvConverter {
+    // Rows per task below which splitting costs more than it saves
+    private static final int MIN_ROWS_PER_TASK = 32;
+
+    // Y  = (( 66R + 129G +  25B + 128) >> 8) + 16
+    // U  = ((-38R -  74G + 112B + 128) >> 8) + 128
+    // V  = ((112R -  94G -  18B + 128) >> 8) + 128
+    // Rounding and offsets are folded into the B tables so the kernel is three
+    // lookups, two adds and a shift - and the results never need clamping.
+    private static final int[] Y_R = new int[256];
+    private static final int[] Y_G = new int[256];
+    private static final int[] Y_B = new int[256];
+    private static final int[] U_R = new int[256];
+    private static final int[] U_G = new int[256];
+    private static final int[] U_B = new int[256];
+    private static final int[] V_R = new int[256];
+    private static final int[] V_G = new int[256];
+    private static final int[] V_B = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            Y_R[i] = 66 * i;
+            Y_G[i] = 129 * i;
+            Y_B[i] = 25 * i + 128 + (16 << 8);
+            U_R[i] = -38 * i;
+            U_G[i] = -74 * i;
+            U_B[i] = 112 * i + 128 + (128 << 8);
+            V_R[i] = 112 * i;
+            V_G[i] = -94 * i;
+            V_B[i] = -18 * i + 128 + (128 << 8);
+        }
+    }
+
+    // Leaf tasks never fork, so one scratch per thread is never shared
+    private static final ThreadLocal<RowScratch> ROW_SCRATCH = new ThreadLocal<RowScratch>() {
+        @Override
+        protected RowScratch initialValue() {
+            return new RowScratch();
+        }
+    };
+
+    private final ForkJoinPool pool;
+    private int[] pixels = new int[0];
+
+    public YuvConverter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public YuvConverter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Reusable ARGB scratch buffer for Bitmap.getPixels(). */
+    public int[] obtainPixelBuffer(int width, int height) {
+        int size = width * height;
+        if (pixels.length < size) pixels = new int[size];
+        return pixels;
+    }
+
+    public void convert(int[] argb, int width, int height, YuvFrame out) {
+        out.reset(width, height);
+        run(new FrameTask(argb, width, out, 0, height / 2));
+    }
+
+    public void convert(int[] argb, int width, int height, YuvPlanes out) {
+        run(new PlanesTask(argb, width, out, 0, height / 2));
+    }
+
+    private void run(RecursiveAction task) {
+        if (pool.getParallelism() <= 1) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Converts row pairs [firstPair, endPair). Chroma is taken from the top-left
+     * pixel of each 2x2 block. Writes into plain arrays at the given offsets.
+     */
+    static void convertRows(int[] argb, int width, int firstPair, int endPair,
+                            byte[] y, int yOffset, byte[] u, byte[] v, int cOffset) {
+        int chromaWidth = width / 2;
+        for (int pair = firstPair; pair < endPair; pair++) {
+            int row = pair * 2;
+            int top = row * width;
+            int bottom = top + width;
+            int yTop = yOffset + (row - firstPair * 2) * width;
+            int yBottom = yTop + width;
+            int c = cOffset + (pair - firstPair) * chromaWidth;
+
+            for (int i = 0; i < width; i += 2) {
+                int p = argb[top + i];
+                int r = (p >> 16) & 0xff;
+                int g = (p >> 8) & 0xff;
+                int b = p & 0xff;
+                y[yTop + i] = (byte) ((Y_R[r] + Y_G[g] + Y_B[b]) >> 8);
+                u[c] = (byte) ((U_R[r] + U_G[g] + U_B[b]) >> 8);
+                v[c] = (byte) ((V_R[r] + V_G[g] + V_B[b]) >> 8);
+                c++;
+
+                p = argb[top + i + 1];
+                y[yTop + i + 1] = luma(p);
+                y[yBottom + i] = luma(argb[bottom + i]);
+                y[yBottom + i + 1] = luma(argb[bottom + i + 1]);
+            }
+        }
+    }
+
+    private static byte luma(int p) {
+        return (byte) ((Y_R[(p >> 16) & 0xff] + Y_G[(p >> 8) & 0xff] + Y_B[p & 0xff]) >> 8);
+    }
+
+    private static int splitPoint(int from, int to) {
+        return (from + to) >>> 1;
+    }
+
+    private static boolean small(int from, int to) {
+        return (to - from) * 2 <= MIN_ROWS_PER_TASK;
+    }
+
+    /** One row pair of Y, U and V, grown to the widest frame the thread has seen. */
+    private static final class RowScratch {
+        byte[] y = new byte[0];
+        byte[] u = new byte[0];
+        byte[] v = new byte[0];
+
+        RowScratch ensure(int width) {
+            if (y.length < width * 2) {
+                y = new byte[width * 2];
+                u = new byte[width / 2];
+                v = new byte[width / 2];
+            }
+            return this;
+        }
+    }
+
+    private static final class FrameTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] argb;
+        private final int width;
+        private final YuvFrame out;
+        private final int from;
+        private final int to;
+
+        FrameTask(int[] argb, int width, YuvFrame out, int from, int to) {
+            this.argb = argb;
+            this.width = width;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (small(from, to)) {
+                convertRows(argb, width, from, to,
+                    out.y, from * 2 * width, out.u, out.v, from * (width / 2));
+                return;
+            }
+            int mid = splitPoint(from, to);
+            invokeAll(new FrameTask(argb, width, out, from, mid),
+                      new FrameTask(argb, width, out, mid, to));
+        }
+    }
+
+    private static final class PlanesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] argb;
+        private final int width;
+        private final YuvPlanes out;
+        private final int from;
+        private final int to;
+
+        PlanesTask(int[] argb, int width, YuvPlanes out, int from, int to) {
+            this.argb = argb;
+            this.width = width;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (!small(from, to)) {
+                int mid = splitPoint(from, to);
+                invokeAll(new PlanesTask(argb, width, out, from, mid),
+                          new PlanesTask(argb, width, out, mid, to));
+                return;
+            }
+            // Convert one row pair at a time into the thread's scratch, then
+            // push whole rows into the destination planes.
+            int chromaWidth = width / 2;
+            RowScratch scratch = ROW_SCRATCH.get().ensure(width);
+            byte[] y = scratch.y;
+            byte[] u = scratch.u;
+            byte[] v = scratch.v;
+            YuvPlanes planes = out.duplicate();
+            for (int pair = from; pair < to; pair++) {
+                convertRows(argb, width, pair, pair + 1, y, 0, u, v, 0);
+                planes.putYRow(pair * 2, y, 0, width);
+                planes.putYRow(pair * 2 + 1, y, width, width);
+                planes.putChromaRow(pair, u, v, 0, chromaWidth);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/YuvFrame.java
+package com.pdfimagetoolbox;
+
+import java.util.Arrays;
+
+/**
+ * A converted 4:2:0 frame held as three tightly packed planes. Instances are
+ * meant to be reused: reset() only reallocates when the dimensions grow.
+ */
+public final class YuvFrame {
+    private static final byte BLACK_LUMA = 16;
+    private static final byte NEUTRAL_CHROMA = (byte) 128;
+
+    int width;
+    int height;
+    byte[] y = new byte[0];
+    byte[] u = new byte[0];
+    byte[] v = new byte[0];
+
+    public YuvFrame() {
+    }
+
+    public YuvFrame(int width, int height) {
+        reset(width, height);
+    }
+
+    public void reset(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int ySize = width * height;
+        int cSize = (width / 2) * (height / 2);
+        if (y.length < ySize) y = new byte[ySize];
+        if (u.length < cSize) u = new byte[cSize];
+        if (v.length < cSize) v = new byte[cSize];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void fillBlack() {
+        int cSize = (width / 2) * (height / 2);
+        Arrays.fill(y, 0, width * height, BLACK_LUMA);
+        Arrays.fill(u, 0, cSize, NEUTRAL_CHROMA);
+        Arrays.fill(v, 0, cSize, NEUTRAL_CHROMA);
+    }
+
+    /** Copies this frame into the encoder's planes, honouring their strides. */
+    public void writeTo(YuvPlanes target) {
+        YuvPlanes planes = target.duplicate();
+        int chromaWidth = width / 2;
+        for (int row = 0; row < height; row++) {
+            planes.putYRow(row, y, row * width, width);
+        }
+        for (int row = 0; row < height / 2; row++) {
+            planes.putChromaRow(row, u, v, row * chromaWidth, chromaWidth);
+        }
+    }
+}
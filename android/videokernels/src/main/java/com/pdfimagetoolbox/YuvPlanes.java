@@ -0,0 +1,103 @@
+// android/videokernels/src/main/java/com/pdfimagetoolbox/YuvPlanes.java
+package com.pdfimagetoolbox;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination layout for a YUV 4:2:0 frame: one buffer per plane plus row and
+ * pixel strides, mirroring android.media.Image.Plane so the same code can write
+ * NV12, I420 or any vendor layout the encoder hands out through getInputImage.
+ *
+ * Pure Java on purpose - the Android side only builds instances.
+ */
+public final class YuvPlanes {
+    final ByteBuffer y;
+    final ByteBuffer u;
+    final ByteBuffer v;
+    final int yRowStride;
+    final int uvRowStride;
+    final int uvPixelStride;
+
+    public YuvPlanes(ByteBuffer y, int yRowStride,
+                     ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+        this.y = y;
+        this.u = u;
+        this.v = v;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+    }
+
+    /** Y plane followed by interleaved U/V (COLOR_FormatYUV420SemiPlanar). */
+    public static YuvPlanes nv12(ByteBuffer buffer, int width, int height) {
+        int base = buffer.position();
+        int ySize = width * height;
+        return new YuvPlanes(
+            slice(buffer, base, ySize), width,
+            slice(buffer, base + ySize, ySize / 2),
+            slice(buffer, base + ySize + 1, ySize / 2 - 1),
+            width, 2);
+    }
+
+    /** Y plane, then full U plane, then full V plane (COLOR_FormatYUV420Planar). */
+    public static YuvPlanes i420(ByteBuffer buffer, int width, int height) {
+        int base = buffer.position();
+        int ySize = width * height;
+        int cSize = ySize / 4;
+        return new YuvPlanes(
+            slice(buffer, base, ySize), width,
+            slice(buffer, base + ySize, cSize),
+            slice(buffer, base + ySize + cSize, cSize),
+            width / 2, 1);
+    }
+
+    /** Byte count of a tightly packed frame, as passed to queueInputBuffer. */
+    public static int packedSize(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    /**
+     * Copy with independent buffer positions so several threads can write
+     * different rows of the same planes.
+     */
+    YuvPlanes duplicate() {
+        return new YuvPlanes(y.duplicate(), yRowStride, u.duplicate(), v.duplicate(),
+            uvRowStride, uvPixelStride);
+    }
+
+    void putYRow(int row, byte[] src, int offset, int length) {
+        position(y, row * yRowStride);
+        y.put(src, offset, length);
+    }
+
+    void putChromaRow(int row, byte[] uSrc, byte[] vSrc, int offset, int length) {
+        int start = row * uvRowStride;
+        if (uvPixelStride == 1) {
+            position(u, start);
+            u.put(uSrc, offset, length);
+            position(v, start);
+            v.put(vSrc, offset, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                int index = start + i * uvPixelStride;
+                u.put(index, uSrc[offset + i]);
+                v.put(index, vSrc[offset + i]);
+            }
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        Buffer view = dup;
+        view.clear();
+        view.position(offset);
+        view.limit(offset + length);
+        return dup.slice();
+    }
+
+    // Through Buffer: JDK 9+ compiles ByteBuffer.position(int) to a covariant overload Android 7 lacks
+    private static void position(ByteBuffer buffer, int position) {
+        ((Buffer) buffer).position(position);
+    }
+}
@@ -0,0 +1,42 @@
+// android/videokernels/src/test/java/com/pdfimagetoolbox/VideoDimensionsTest.java
+package com.pdfimagetoolbox;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VideoDimensionsTest {
+
+    @Test
+    public void previewOfLandscapeKeepsAspectAtPreviewLongEdge() {
+        assertArrayEquals(new int[]{360, 270}, VideoDimensions.fitPreview(4000, 3000));
+    }
+
+    @Test
+    public void previewOfPortraitKeepsAspectAtPreviewLongEdge() {
+        assertArrayEquals(new int[]{202, 360}, VideoDimensions.fitPreview(1080, 1920));
+    }
+
+    @Test
+    public void previewIsNeverLargerThanPreviewLongEdge() {
+        int[][] sources = {{4000, 3000}, {3000, 4000}, {1920, 1080}, {1000, 1000}, {640, 480}};
+        for (int[] source : sources) {
+            int[] dims = VideoDimensions.fitPreview(source[0], source[1]);
+            assertEquals(VideoDimensions.PREVIEW_LONG_EDGE, Math.max(dims[0], dims[1]));
+            assertTrue(dims[0] % 2 == 0 && dims[1] % 2 == 0);
+        }
+    }
+
+    @Test
+    public void previewOfExtremeStripIsFloored() {
+        int[] dims = VideoDimensions.fitPreview(10000, 100);
+        assertArrayEquals(new int[]{360, VideoDimensions.PREVIEW_MIN_EDGE}, dims);
+    }
+
+    @Test
+    public void finalRenderKeepsMinEdge() {
+        assertArrayEquals(new int[]{640, 480}, VideoDimensions.fit(640, 360, 640));
+    }
+}
@@ -17,7 +17,7 @@ import { Color } from '../utils/Theme';
 import Share from 'react-native-share';
 import { NativeModules } from 'react-native';
 import { BannerAd, BannerAdSize, TestIds } from "react-native-google-mobile-ads";
-const { PdfResizer, PdfCompressor } = NativeModules; // Add PdfCompressor
+const { PdfCompressor } = NativeModules;
 import { useNavigation } from '@react-navigation/native';
 import Toast from 'react-native-toast-message';
 import { Dowload, OpenA, OpenB, PdfPick, ShareA, ShareB } from '../assets/Image/images';
@@ -162,14 +162,15 @@ const ResizeImage = () => {
       console.log('Output path:', safeOutputPath);
       console.log('Quality:', selectedQuality);
 
-      // Use new PdfResizer module (Robust, Native-based)
-      const result = await PdfResizer.compressPdf(
+      // Profiles the PDF and picks lossless rewrite, image recompression or rasterisation
+      const result = await PdfCompressor.compressPdf(
         filePath,
         selectedQuality || 'medium',
         safeOutputPath
       );
 
       console.log('Result Data', result);
+      console.log('Compression method:', result?.method, 'page kinds:', result?.pageKinds, 'phases (ms):', result?.phasesMs);
       console.log('Result type:', typeof result);
 
       // Check if result is an object and has the expected properties
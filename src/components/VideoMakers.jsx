@@ -10,6 +10,7 @@ import {
   View,
   ActivityIndicator,
   NativeModules,
+  DeviceEventEmitter,
 } from 'react-native';
 import BaseContainer from './BaseContainer';
 import ToolsHeader from './ToolsHeader';
@@ -52,6 +53,13 @@ const VideoMakers = () => {
   useEffect(() => {
     initNotifications();  // setup notifications on mount
   }, []);
+  useEffect(() => {
+    // Native renders run off the bridge thread and report frame progress
+    const subscription = DeviceEventEmitter.addListener('VideoMakerProgress', event => {
+      setProcessingProgress(`Encoding video... ${Math.round(event.progress * 100)}%`);
+    });
+    return () => subscription.remove();
+  }, []);
   useEffect(() => {
     const unsubscribe = notifee.onForegroundEvent(({ type, detail }) => {
       if (type === EventType.PRESS && detail.pressAction.id === 'open-file') {
@@ -232,7 +240,8 @@ const VideoMakers = () => {
           } else {
             videoPath = await VideoMakerModule.convertImageToVideo(
               imagePath,
-              totalDurationSeconds
+              totalDurationSeconds,
+              {}
             );
           }
 
@@ -280,7 +289,8 @@ const VideoMakers = () => {
             // Pass TOTAL duration, not per-image duration
             videoPath = await VideoMakerModule.convertImagesToVideo(
               imagePaths,
-              totalDurationSeconds  // CHANGED: Pass total duration instead of per-image
+              totalDurationSeconds,  // CHANGED: Pass total duration instead of per-image
+              {}
             );
           }
 
@@ -349,6 +359,8 @@ const VideoMakers = () => {
 
       await RNFS.copyFile(src, dest);
       await CameraRoll.saveAsset(dest, { type: 'video', album: 'PDF_IMG_TOOLBOX' });
+      // The app's own copy may now be evicted when storage runs over budget
+      await VideoMakerModule.markVideoExported(src);
 
       await showNotification(
         'Image Downloaded',